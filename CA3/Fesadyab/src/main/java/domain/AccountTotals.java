@@ -0,0 +1,112 @@
+package domain;
+
+import java.util.Arrays;
+
+/**
+ * Running amount sum and transaction count per account, in an open-addressing table keyed by primitive account
+ * id, so that an account's average is available without walking the history.
+ */
+final class AccountTotals {
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] accounts;
+    private long[] sums;
+    private int[] counts;
+    private int size;
+    private long freeSum;
+    private int freeCount;
+
+    AccountTotals() {
+        clear();
+    }
+
+    void add(int accountId, int amount) {
+        if (accountId == FREE) {
+            freeSum += amount;
+            freeCount++;
+            return;
+        }
+        int i = slot(accountId);
+        if (accounts[i] == FREE) {
+            accounts[i] = accountId;
+            if (++size * 2 > accounts.length) {
+                grow();
+                i = slot(accountId);
+            }
+        }
+        sums[i] += amount;
+        counts[i]++;
+    }
+
+    long sum(int accountId) {
+        if (accountId == FREE) {
+            return freeSum;
+        }
+        int i = slot(accountId);
+        return accounts[i] == FREE ? 0 : sums[i];
+    }
+
+    int count(int accountId) {
+        if (accountId == FREE) {
+            return freeCount;
+        }
+        int i = slot(accountId);
+        return accounts[i] == FREE ? 0 : counts[i];
+    }
+
+    /**
+     * Integer average of the account's amounts, with the sum truncated to int as a plain int loop would, or 0 if it
+     * has none.
+     */
+    int average(int accountId) {
+        int count = count(accountId);
+        if (count == 0) {
+            return 0;
+        }
+        return (int) sum(accountId) / count;
+    }
+
+    void clear() {
+        accounts = new int[16];
+        Arrays.fill(accounts, FREE);
+        sums = new long[16];
+        counts = new int[16];
+        size = 0;
+        freeSum = 0;
+        freeCount = 0;
+    }
+
+    /**
+     * The slot holding {@code accountId}, or the free slot where it would go.
+     */
+    private int slot(int accountId) {
+        int mask = accounts.length - 1;
+        int i = hash(accountId) & mask;
+        while (accounts[i] != FREE && accounts[i] != accountId) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void grow() {
+        int[] oldAccounts = accounts;
+        long[] oldSums = sums;
+        int[] oldCounts = counts;
+        accounts = new int[oldAccounts.length * 2];
+        Arrays.fill(accounts, FREE);
+        sums = new long[accounts.length];
+        counts = new int[accounts.length];
+        for (int j = 0; j < oldAccounts.length; j++) {
+            if (oldAccounts[j] != FREE) {
+                int i = slot(oldAccounts[j]);
+                accounts[i] = oldAccounts[j];
+                sums[i] = oldSums[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    private static int hash(int accountId) {
+        return TransactionIdSet.hash(accountId);
+    }
+}
@@ -0,0 +1,96 @@
+package domain;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link TransactionEngine} that several threads can feed at once. Every call scores its transaction the way
+ * the single-threaded engine would if it had seen the same transactions one after another, in the order in which
+ * they passed through the sequencer.
+ * <p>
+ * Duplicates are turned away by a lock-free id set. Account totals are split into stripes by account id and a
+ * transaction holds its stripe's lock while it is scored, so only transactions of accounts that share a stripe
+ * wait for each other. The pattern detector is the sequencer: its state is immutable once published and is
+ * replaced with a compare-and-set, and only a transaction that changes it has to win one. Once the pattern is
+ * broken, or for transactions below the threshold, the detector is only read.
+ * <p>
+ * Unlike {@link TransactionEngine} it keeps only these aggregates, not the transactions themselves.
+ */
+public class ConcurrentTransactionEngine {
+    final int THRESHOLD = 1000;
+
+    private final ConcurrentTransactionIdSet ids = new ConcurrentTransactionIdSet();
+    private final AccountTotals[] stripes;
+    private final int stripeShift;
+    private final AtomicReference<TransactionPattern> pattern =
+            new AtomicReference<>(new TransactionPattern(THRESHOLD));
+
+    public ConcurrentTransactionEngine() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    ConcurrentTransactionEngine(int stripeCount) {
+        stripes = new AccountTotals[Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1];
+        stripeShift = Integer.numberOfLeadingZeros(stripes.length) + 1;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new AccountTotals();
+        }
+    }
+
+    int getAverageTransactionAmountByAccount(int accountId) {
+        AccountTotals stripe = stripe(accountId);
+        synchronized (stripe) {
+            return stripe.average(accountId);
+        }
+    }
+
+    int getTransactionPatternAboveThreshold() {
+        return pattern.get().value();
+    }
+
+    public int addTransactionAndDetectFraud(Transaction txn) {
+        if (!ids.add(txn.transactionId)) {
+            return 0;
+        }
+
+        AccountTotals stripe = stripe(txn.accountId);
+        synchronized (stripe) {
+            var fraudScore = TransactionEngine.fraudScore(txn, stripe.average(txn.accountId));
+            var patternScore = sequence(txn);
+            stripe.add(txn.accountId, txn.amount);
+            return fraudScore != 0 ? fraudScore : patternScore;
+        }
+    }
+
+    /**
+     * Feeds {@code txn} to the pattern detector and returns the value the detector had just before it.
+     */
+    private int sequence(Transaction txn) {
+        while (true) {
+            TransactionPattern current = pattern.get();
+            if (!current.changedBy(txn)) {
+                return current.value();
+            }
+            TransactionPattern next = current.copy();
+            next.accept(txn);
+            if (publish(current, next, txn)) {
+                return current.value();
+            }
+        }
+    }
+
+    /**
+     * Replaces the detector state {@code current} with {@code next}, the state after {@code txn}, unless another
+     * transaction has replaced it first. Tests override this to record the order of the swaps.
+     */
+    boolean publish(TransactionPattern current, TransactionPattern next, Transaction txn) {
+        return pattern.compareAndSet(current, next);
+    }
+
+    /**
+     * The stripe picked by the top bits of the hash, so that the accounts in one stripe still spread over the low
+     * bits its own table uses.
+     */
+    private AccountTotals stripe(int accountId) {
+        return stripes[TransactionIdSet.hash(accountId) >>> stripeShift];
+    }
+}
@@ -0,0 +1,154 @@
+package domain;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+/**
+ * Lock-free counterpart of {@link TransactionIdSet}: ids are claimed with a compare-and-set on an open-addressing
+ * table, so of several threads adding the same id exactly one sees {@code true}.
+ * <p>
+ * When a table is half full a table twice its size is linked after it, and the thread that linked it seals every
+ * free slot of the old table and copies the old ids across. A probe that reaches a sealed slot carries on in the
+ * next table, which is safe because every slot before it on the probe path holds some other id for good. Nobody
+ * waits for the copy to finish; until it does, lookups may walk both tables.
+ */
+final class ConcurrentTransactionIdSet {
+    private static final int FREE = Integer.MIN_VALUE;
+    private static final int SEALED = Integer.MIN_VALUE + 1;
+
+    private final AtomicReference<Table> head = new AtomicReference<>(new Table(16));
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final IntConsumer copied;
+
+    ConcurrentTransactionIdSet() {
+        this(id -> { });
+    }
+
+    /**
+     * {@code copied} is called with each id moved into a larger table while the move is still going on, so that
+     * tests can act in the middle of a resize.
+     */
+    ConcurrentTransactionIdSet(IntConsumer copied) {
+        this.copied = copied;
+    }
+
+    boolean contains(int id) {
+        if (id == FREE || id == SEALED) {
+            return (reserved.get() & reservedBit(id)) != 0;
+        }
+        for (Table table = head.get(); table != null; table = table.next.get()) {
+            int mask = table.slots.length() - 1;
+            int i = TransactionIdSet.hash(id) & mask;
+            for (int probes = 0; probes <= mask; probes++, i = (i + 1) & mask) {
+                int slot = table.slots.get(i);
+                if (slot == id) {
+                    return true;
+                }
+                if (slot == FREE) {
+                    return false;
+                }
+                if (slot == SEALED) {
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds {@code id}; returns false if it was already present or another thread added it first.
+     */
+    boolean add(int id) {
+        if (id == FREE || id == SEALED) {
+            int bit = reservedBit(id);
+            int bits = reserved.getAndUpdate(current -> current | bit);
+            if ((bits & bit) != 0) {
+                return false;
+            }
+        } else if (!insert(head.get(), id)) {
+            return false;
+        }
+        size.incrementAndGet();
+        return true;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private boolean insert(Table table, int id) {
+        while (true) {
+            int mask = table.slots.length() - 1;
+            int i = TransactionIdSet.hash(id) & mask;
+            int probes = 0;
+            while (probes <= mask) {
+                int slot = table.slots.get(i);
+                if (slot == FREE) {
+                    if (table.slots.compareAndSet(i, FREE, id)) {
+                        if (table.used.incrementAndGet() * 2 > table.slots.length()) {
+                            resize(table);
+                        }
+                        return true;
+                    }
+                    continue;
+                }
+                if (slot == id) {
+                    return false;
+                }
+                if (slot == SEALED) {
+                    break;
+                }
+                i = (i + 1) & mask;
+                probes++;
+            }
+            Table next = table.next.get();
+            table = next != null ? next : resize(table);
+        }
+    }
+
+    /**
+     * Links a larger table after {@code table} and, if this thread linked it, moves the contents across.
+     */
+    private Table resize(Table table) {
+        Table next = new Table(table.slots.length() * 2);
+        if (!table.next.compareAndSet(null, next)) {
+            return table.next.get();
+        }
+        for (int i = 0; i < table.slots.length(); i++) {
+            int slot = table.slots.get(i);
+            while (slot == FREE && !table.slots.compareAndSet(i, FREE, SEALED)) {
+                slot = table.slots.get(i);
+            }
+            if (slot != FREE) {
+                insert(next, slot);
+                copied.accept(slot);
+            }
+        }
+        table.moved = true;
+        for (Table first = head.get(); first.moved; first = head.get()) {
+            head.compareAndSet(first, first.next.get());
+        }
+        return next;
+    }
+
+    private static int reservedBit(int id) {
+        return id == FREE ? 1 : 2;
+    }
+
+    private static final class Table {
+        final AtomicIntegerArray slots;
+        final AtomicInteger used = new AtomicInteger();
+        final AtomicReference<Table> next = new AtomicReference<>();
+        volatile boolean moved;
+
+        Table(int capacity) {
+            int[] free = new int[capacity];
+            Arrays.fill(free, FREE);
+            slots = new AtomicIntegerArray(free);
+        }
+    }
+}
@@ -1,64 +1,29 @@
 package domain;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class TransactionEngine {
-    ArrayList<Transaction> transactionHistory;
+    TransactionHistory transactionHistory;
     int THRESHOLD = 1000;
 
     public TransactionEngine() {
-        transactionHistory = new ArrayList<>();
+        transactionHistory = new TransactionHistory();
     }
 
     int getAverageTransactionAmountByAccount(int accountId) {
-        var totalAmount = 0;
-        var count = 0;
-
-        for (Transaction txn : transactionHistory) {
-            if (txn.accountId == accountId) {
-                totalAmount += txn.amount;
-                count++;
-            }
-        }
-
-        if (count == 0) {
-            return 0;
-        }
-
-        return totalAmount / count;
+        return transactionHistory.averageAmount(accountId);
     }
 
     int getTransactionPatternAboveThreshold(int threshold) {
-        if (transactionHistory.isEmpty()) {
-            return 0;
-        }
-
-        var diff = 0;
-        var previous = transactionHistory.get(0);
-
-        for (Transaction txn : transactionHistory) {
-            if (txn.transactionId == previous.transactionId) {
-                continue;
-            }
-
-            if (txn.amount <= threshold) {
-                continue;
-            }
-
-            if (diff == 0) {
-                diff = txn.amount - previous.amount;
-                previous = txn;
-            } else if (diff != txn.amount - previous.amount) {
-                return 0;
-            }
-        }
-
-        return diff;
+        return transactionHistory.patternAboveThreshold(threshold);
     }
 
     int detectFraudulentTransaction(Transaction txn) {
-        var averageAmount = getAverageTransactionAmountByAccount(txn.accountId);
+        return fraudScore(txn, getAverageTransactionAmountByAccount(txn.accountId));
+    }
 
+    static int fraudScore(Transaction txn, int averageAmount) {
         if (txn.isDebit && txn.amount > 2 * averageAmount) {
             return txn.amount - 2 * averageAmount;
         }
@@ -67,7 +32,7 @@ public class TransactionEngine {
     }
 
     public int addTransactionAndDetectFraud(Transaction txn) {
-        if (transactionHistory.contains(txn)) {
+        if (transactionHistory.containsId(txn.transactionId)) {
             return 0;
         }
 
@@ -79,4 +44,25 @@ public class TransactionEngine {
         transactionHistory.add(txn);
         return fraudScore;
     }
+
+    /**
+     * Adds the transactions in order and returns their scores, the same as calling
+     * {@link #addTransactionAndDetectFraud} on each: a transaction repeating an id seen earlier in the batch scores
+     * 0, and the rules see the earlier transactions of the batch. The history and its id index are sized for the
+     * whole batch up front.
+     */
+    public int[] addTransactionsAndDetectFraud(List<Transaction> txns) {
+        long expected = (long) transactionHistory.size() + txns.size();
+        transactionHistory.ensureCapacity((int) Math.min(expected, Integer.MAX_VALUE));
+        var scores = new int[txns.size()];
+        var i = 0;
+        for (Transaction txn : txns) {
+            scores[i++] = addTransactionAndDetectFraud(txn);
+        }
+        return scores;
+    }
+
+    public int[] addTransactionsAndDetectFraud(Transaction[] txns) {
+        return addTransactionsAndDetectFraud(Arrays.asList(txns));
+    }
 }
@@ -0,0 +1,139 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The transactions seen so far, in arrival order, together with indexes over them. Appending with
+ * {@link #add(Transaction)} updates the indexes in place. Other changes made through the list's own methods and
+ * iterators are noticed through its modification count, and the indexes are rebuilt the next time they are used.
+ * Sublists are read-only, since writes through them would not be counted.
+ * <p>
+ * The indexes copy a transaction's fields when it is indexed, so a transaction must not be changed through its
+ * setters once it is in the history; replace it with {@link #set} instead. Such changes are not detected.
+ */
+class TransactionHistory extends ArrayList<Transaction> {
+    private static final int MAX_PATTERNS = 4;
+
+    private final TransactionIdSet ids = new TransactionIdSet();
+    private final AccountTotals accounts = new AccountTotals();
+    private final List<TransactionPattern> patterns = new ArrayList<>();
+    private int indexedModCount;
+
+    @Override
+    public boolean add(Transaction txn) {
+        boolean indexed = indexedModCount == modCount;
+        super.add(txn);
+        if (indexed) {
+            index(txn);
+            indexedModCount = modCount;
+        }
+        return true;
+    }
+
+    /**
+     * Also sizes the id index for {@code minCapacity} transactions. Unlike other changes, this does not make the
+     * indexes stale.
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        boolean indexed = indexedModCount == modCount;
+        super.ensureCapacity(minCapacity);
+        if (indexed) {
+            ids.ensureCapacity(minCapacity);
+            indexedModCount = modCount;
+        }
+    }
+
+    /**
+     * Number of slots in the id index, which only grows when ids are added or capacity is ensured.
+     */
+    int idCapacity() {
+        return ids.capacity();
+    }
+
+    @Override
+    public Transaction set(int index, Transaction txn) {
+        Transaction replaced = super.set(index, txn);
+        modCount++;
+        return replaced;
+    }
+
+    /**
+     * A read-only view: {@code set} on an {@code ArrayList} sublist writes the backing array without counting as a
+     * modification, which would leave the indexes stale.
+     */
+    @Override
+    public List<Transaction> subList(int fromIndex, int toIndex) {
+        return Collections.unmodifiableList(super.subList(fromIndex, toIndex));
+    }
+
+    @Override
+    public boolean contains(Object obj) {
+        if (obj instanceof Transaction txn) {
+            return containsId(txn.transactionId);
+        }
+        return super.contains(obj);
+    }
+
+    boolean containsId(int transactionId) {
+        ensureIndexed();
+        return ids.contains(transactionId);
+    }
+
+    /**
+     * Integer average of the amounts of the account's transactions, summed with int overflow as a plain loop
+     * would, or 0 if it has none.
+     */
+    int averageAmount(int accountId) {
+        ensureIndexed();
+        return accounts.average(accountId);
+    }
+
+    /**
+     * Result of the above-threshold pattern detector over the whole history. A detector is kept up to date for
+     * each of the last few thresholds asked for; a new threshold costs one pass over the history.
+     */
+    int patternAboveThreshold(int threshold) {
+        ensureIndexed();
+        for (TransactionPattern pattern : patterns) {
+            if (pattern.threshold() == threshold) {
+                return pattern.value();
+            }
+        }
+        TransactionPattern pattern = new TransactionPattern(threshold);
+        for (Transaction txn : this) {
+            if (txn != null) {
+                pattern.accept(txn);
+            }
+        }
+        if (patterns.size() == MAX_PATTERNS) {
+            patterns.remove(0);
+        }
+        patterns.add(pattern);
+        return pattern.value();
+    }
+
+    private void ensureIndexed() {
+        if (indexedModCount != modCount) {
+            ids.clear();
+            accounts.clear();
+            patterns.replaceAll(pattern -> new TransactionPattern(pattern.threshold()));
+            for (Transaction txn : this) {
+                index(txn);
+            }
+            indexedModCount = modCount;
+        }
+    }
+
+    private void index(Transaction txn) {
+        if (txn != null) {
+            ids.add(txn.transactionId);
+            accounts.add(txn.accountId, txn.amount);
+            for (TransactionPattern pattern : patterns) {
+                pattern.accept(txn);
+            }
+        }
+    }
+}
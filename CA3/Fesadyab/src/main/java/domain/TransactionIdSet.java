@@ -0,0 +1,120 @@
+package domain;
+
+import java.util.Arrays;
+
+/**
+ * Set of transaction ids in an open-addressing table of primitive ints with linear probing, so that a lookup
+ * costs the same however many ids it holds and nothing is boxed.
+ */
+final class TransactionIdSet {
+    private static final int FREE = Integer.MIN_VALUE;
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private int[] slots;
+    private int size;
+    private boolean containsFree;
+
+    TransactionIdSet() {
+        clear();
+    }
+
+    boolean contains(int id) {
+        if (id == FREE) {
+            return containsFree;
+        }
+        int mask = slots.length - 1;
+        for (int i = hash(id) & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == id) {
+                return true;
+            }
+            if (slot == FREE) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Adds {@code id}; returns false if it was already present.
+     */
+    boolean add(int id) {
+        if (id == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int i = hash(id) & mask;
+        while (slots[i] != FREE) {
+            if (slots[i] == id) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = id;
+        if (++size * 2 > slots.length && slots.length < MAX_CAPACITY) {
+            resize(slots.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Grows the table ahead of time so that it holds {@code expected} ids without resizing again.
+     */
+    void ensureCapacity(int expected) {
+        int capacity = capacityFor(expected, slots.length);
+        if (capacity != slots.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * The smallest power of two from {@code capacity} up that keeps {@code expected} ids at most half full, but no
+     * more than {@link #MAX_CAPACITY}; a table that large fills past half instead of growing.
+     */
+    static int capacityFor(int expected, int capacity) {
+        while (expected > capacity / 2 && capacity < MAX_CAPACITY) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    void clear() {
+        slots = new int[16];
+        Arrays.fill(slots, FREE);
+        size = 0;
+        containsFree = false;
+    }
+
+    private void resize(int capacity) {
+        int[] old = slots;
+        slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+        int mask = slots.length - 1;
+        for (int id : old) {
+            if (id != FREE) {
+                int i = hash(id) & mask;
+                while (slots[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = id;
+            }
+        }
+    }
+
+    static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
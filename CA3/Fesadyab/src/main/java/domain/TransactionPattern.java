@@ -0,0 +1,68 @@
+package domain;
+
+/**
+ * The above-threshold pattern detector of {@link TransactionEngine#getTransactionPatternAboveThreshold} as a state
+ * machine fed one transaction at a time, in history order. The first transaction only becomes the reference; the
+ * first later transaction above the threshold with a different id and a non-zero difference fixes the step, and
+ * the pattern is broken for good as soon as another one differs from the reference by anything else.
+ */
+final class TransactionPattern {
+    private final int threshold;
+    private boolean started;
+    private int previousId;
+    private int previousAmount;
+    private int diff;
+    private boolean broken;
+
+    TransactionPattern(int threshold) {
+        this.threshold = threshold;
+    }
+
+    int threshold() {
+        return threshold;
+    }
+
+    /**
+     * Whether accepting {@code txn} would change the state, and so possibly the value.
+     */
+    boolean changedBy(Transaction txn) {
+        return !started || !broken && txn.transactionId != previousId && txn.amount > threshold
+                && (diff == 0 || diff != txn.amount - previousAmount);
+    }
+
+    TransactionPattern copy() {
+        TransactionPattern copy = new TransactionPattern(threshold);
+        copy.started = started;
+        copy.previousId = previousId;
+        copy.previousAmount = previousAmount;
+        copy.diff = diff;
+        copy.broken = broken;
+        return copy;
+    }
+
+    void accept(Transaction txn) {
+        if (!started) {
+            started = true;
+            previousId = txn.transactionId;
+            previousAmount = txn.amount;
+            return;
+        }
+        if (broken || txn.transactionId == previousId || txn.amount <= threshold) {
+            return;
+        }
+        if (diff == 0) {
+            diff = txn.amount - previousAmount;
+            previousId = txn.transactionId;
+            previousAmount = txn.amount;
+        } else if (diff != txn.amount - previousAmount) {
+            broken = true;
+        }
+    }
+
+    /**
+     * The step of the pattern seen so far, or 0 if there is none.
+     */
+    int value() {
+        return broken ? 0 : diff;
+    }
+}
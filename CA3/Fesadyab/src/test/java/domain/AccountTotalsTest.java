@@ -0,0 +1,98 @@
+package domain;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountTotalsTest {
+    private AccountTotals totals;
+
+    @BeforeEach
+    public void setUp() {
+        totals = new AccountTotals();
+    }
+
+    @Test
+    public void sumAndCount_When_UnknownAccount_Then_Zero()
+    {
+        assertEquals(0, totals.sum(1));
+        assertEquals(0, totals.count(1));
+        assertEquals(0, totals.count(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void add_When_SeveralAccounts_Then_KeptApart()
+    {
+        totals.add(1, 100);
+        totals.add(2, 50);
+        totals.add(1, 300);
+        totals.add(Integer.MIN_VALUE, 7);
+        assertEquals(400, totals.sum(1));
+        assertEquals(2, totals.count(1));
+        assertEquals(50, totals.sum(2));
+        assertEquals(1, totals.count(2));
+        assertEquals(7, totals.sum(Integer.MIN_VALUE));
+        assertEquals(1, totals.count(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void average_When_MinValueAccount_Then_KeptOutsideTable()
+    {
+        assertEquals(0, totals.average(Integer.MIN_VALUE));
+        totals.add(Integer.MIN_VALUE, 100);
+        totals.add(Integer.MIN_VALUE, 301);
+        for (int account = 0; account < 100; account++) {
+            totals.add(account, 1);
+        }
+        assertEquals(200, totals.average(Integer.MIN_VALUE));
+        assertEquals(401, totals.sum(Integer.MIN_VALUE));
+        assertEquals(2, totals.count(Integer.MIN_VALUE));
+        assertEquals(1, totals.average(0));
+        assertEquals(0, totals.count(Integer.MIN_VALUE + 1));
+        assertEquals(0, totals.average(100));
+    }
+
+    @Test
+    public void average_When_SumOverflowsInt_Then_TruncatedLikeIntLoop()
+    {
+        totals.add(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        totals.add(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals((Integer.MAX_VALUE + Integer.MAX_VALUE) / 2, totals.average(Integer.MIN_VALUE));
+        totals.add(7, Integer.MAX_VALUE);
+        totals.add(7, 1);
+        assertEquals(Integer.MIN_VALUE / 2, totals.average(7));
+    }
+
+    @Test
+    public void clear_When_Filled_Then_Empty()
+    {
+        totals.add(1, 100);
+        totals.add(Integer.MIN_VALUE, 7);
+        totals.clear();
+        assertEquals(0, totals.count(1));
+        assertEquals(0, totals.sum(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void add_When_ManyRandomAccounts_Then_SameAsHashMap()
+    {
+        Random random = new Random(2);
+        Map<Integer, Long> sums = new HashMap<>();
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            int account = random.nextInt(20_000) - 10_000;
+            int amount = random.nextInt();
+            totals.add(account, amount);
+            sums.merge(account, (long) amount, Long::sum);
+            counts.merge(account, 1, Integer::sum);
+        }
+        for (int account = -10_000; account < 10_000; account++) {
+            assertEquals(sums.getOrDefault(account, 0L), totals.sum(account));
+            assertEquals(counts.getOrDefault(account, 0), totals.count(account));
+        }
+    }
+}
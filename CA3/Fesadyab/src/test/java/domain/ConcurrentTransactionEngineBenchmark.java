@@ -0,0 +1,69 @@
+package domain;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingestion throughput of {@link ConcurrentTransactionEngine} against a {@link TransactionEngine} behind one lock,
+ * with every benchmark thread feeding its own partition of ids. Pass {@code -t} to compare thread counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentTransactionEngineBenchmark {
+    private static final int ACCOUNTS = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Engines {
+        final AtomicInteger partitions = new AtomicInteger();
+        ConcurrentTransactionEngine concurrent;
+        TransactionEngine locked;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            concurrent = new ConcurrentTransactionEngine();
+            locked = new TransactionEngine();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Feed {
+        int nextId;
+
+        @Setup(Level.Iteration)
+        public void setUp(Engines engines) {
+            nextId = engines.partitions.getAndIncrement() << 24;
+        }
+
+        Transaction next() {
+            int id = nextId++;
+            return TransactionEngineTest.makeTransaction(id, id % ACCOUNTS, 100 + id % 500, id % 3 != 0);
+        }
+    }
+
+    @Benchmark
+    public int concurrent(Engines engines, Feed feed) {
+        return engines.concurrent.addTransactionAndDetectFraud(feed.next());
+    }
+
+    @Benchmark
+    public int locked(Engines engines, Feed feed) {
+        Transaction txn = feed.next();
+        synchronized (engines.locked) {
+            return engines.locked.addTransactionAndDetectFraud(txn);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ConcurrentTransactionEngineBenchmark.class.getSimpleName()).build())
+                .run();
+    }
+}
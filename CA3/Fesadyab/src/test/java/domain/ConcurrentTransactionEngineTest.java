@@ -0,0 +1,265 @@
+package domain;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static domain.TransactionEngineTest.makeTransaction;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTransactionEngineTest {
+    private ConcurrentTransactionEngine concurrentEngine;
+
+    @BeforeEach
+    public void setUp() {
+        concurrentEngine = new ConcurrentTransactionEngine(4);
+    }
+
+    @Test
+    public void addTransactionAndDetectFraud_When_Duplicate_Then_Zero()
+    {
+        assertEquals(0, concurrentEngine.addTransactionAndDetectFraud(makeTransaction(0, 1, 500, false)));
+        assertEquals(0, concurrentEngine.addTransactionAndDetectFraud(makeTransaction(0, 1, 5000, true)));
+        assertEquals(500, concurrentEngine.getAverageTransactionAmountByAccount(1));
+        assertEquals(1000, concurrentEngine.addTransactionAndDetectFraud(makeTransaction(1, 1, 2000, true)));
+    }
+
+    @Test
+    public void getTransactionPatternAboveThreshold_When_StepSeenThenBroken_Then_StepThenZero()
+    {
+        ConcurrentTransactionEngine engine = new ConcurrentTransactionEngine();
+        assertEquals(0, engine.addTransactionAndDetectFraud(makeTransaction(1, 1, 1200, false)));
+        assertEquals(0, engine.getTransactionPatternAboveThreshold());
+        assertEquals(0, engine.addTransactionAndDetectFraud(makeTransaction(2, 2, 1300, false)));
+        assertEquals(100, engine.getTransactionPatternAboveThreshold());
+        assertEquals(100, engine.addTransactionAndDetectFraud(makeTransaction(3, 3, 1400, false)));
+        assertEquals(100, engine.addTransactionAndDetectFraud(makeTransaction(4, 4, 1300, false)));
+        assertEquals(0, engine.getTransactionPatternAboveThreshold());
+        assertEquals(0, engine.addTransactionAndDetectFraud(makeTransaction(5, 5, 1400, false)));
+    }
+
+    @Test
+    public void addTransactionAndDetectFraud_When_PublishLosesToOtherTransaction_Then_RetriedOnItsState()
+    {
+        List<Integer> attempts = new ArrayList<>();
+        ConcurrentTransactionEngine engine = new ConcurrentTransactionEngine(4) {
+            boolean raced;
+
+            @Override
+            boolean publish(TransactionPattern current, TransactionPattern next, Transaction txn) {
+                attempts.add(txn.transactionId);
+                if (txn.transactionId == 3 && !raced) {
+                    raced = true;
+                    // another transaction fixes the step between this one's read and its swap
+                    assertEquals(0, addTransactionAndDetectFraud(makeTransaction(2, 2, 1300, false)));
+                }
+                return super.publish(current, next, txn);
+            }
+        };
+
+        assertEquals(0, engine.addTransactionAndDetectFraud(makeTransaction(1, 1, 1200, false)));
+        assertEquals(100, engine.addTransactionAndDetectFraud(makeTransaction(3, 3, 1500, false)));
+
+        assertEquals(List.of(1, 3, 2, 3), attempts);
+        assertEquals(0, engine.getTransactionPatternAboveThreshold());
+    }
+
+    @Test
+    public void addTransactionAndDetectFraud_When_SingleThread_Then_SameAsTransactionEngine()
+    {
+        for (long seed = 0; seed < 100; seed++) {
+            Random random = new Random(seed);
+            TransactionEngine engine = new TransactionEngine();
+            ConcurrentTransactionEngine concurrent = new ConcurrentTransactionEngine(2);
+            for (int step = 0; step < 100; step++) {
+                int amount = random.nextInt(4) == 0 ? 1000 + 100 * random.nextInt(8) : 100 + random.nextInt(1600);
+                Transaction txn = makeTransaction(random.nextInt(120), random.nextInt(6), amount, random.nextBoolean());
+                assertEquals(engine.addTransactionAndDetectFraud(txn), concurrent.addTransactionAndDetectFraud(txn),
+                        "seed " + seed + " step " + step);
+            }
+            assertEquals(engine.getTransactionPatternAboveThreshold(engine.THRESHOLD),
+                    concurrent.getTransactionPatternAboveThreshold());
+        }
+    }
+
+    @Test
+    @Tag("stress")
+    public void addTransactionAndDetectFraud_When_PartitionsFedConcurrently_Then_EachScoredAsAlone() throws Exception
+    {
+        int partitions = 4;
+        List<List<Transaction>> feeds = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            Random random = new Random(p);
+            List<Transaction> feed = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                int account = p + partitions * random.nextInt(50);
+                feed.add(makeTransaction(p + partitions * i, account, 1 + random.nextInt(1000), random.nextBoolean()));
+            }
+            feeds.add(feed);
+        }
+
+        CyclicBarrier start = new CyclicBarrier(partitions);
+        ExecutorService executor = Executors.newFixedThreadPool(partitions);
+        List<Future<int[]>> futures = new ArrayList<>();
+        try {
+            for (List<Transaction> feed : feeds) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int[] scores = new int[feed.size()];
+                    for (int i = 0; i < scores.length; i++) {
+                        scores[i] = concurrentEngine.addTransactionAndDetectFraud(feed.get(i));
+                    }
+                    return scores;
+                }));
+            }
+            for (int p = 0; p < partitions; p++) {
+                TransactionEngine alone = new TransactionEngine();
+                int[] scores = futures.get(p).get();
+                for (int i = 0; i < scores.length; i++) {
+                    assertEquals(alone.addTransactionAndDetectFraud(feeds.get(p).get(i)), scores[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(0, concurrentEngine.getTransactionPatternAboveThreshold());
+    }
+
+    @Test
+    @Tag("stress")
+    public void addTransactionAndDetectFraud_When_AboveThresholdConcurrently_Then_SameAsReplayInSwapOrder()
+            throws Exception
+    {
+        int partitions = 4;
+        for (int round = 0; round < 50; round++) {
+            List<List<Transaction>> feeds = new ArrayList<>();
+            for (int p = 0; p < partitions; p++) {
+                Random random = new Random(round * partitions + p);
+                List<Transaction> feed = new ArrayList<>();
+                for (int i = 0; i < 2_000; i++) {
+                    int pick = random.nextInt(100);
+                    int amount = pick < 85 ? 1200 : pick < 95 ? 1100 : pick < 98 ? 1500 : 100 + random.nextInt(900);
+                    int account = p + partitions * random.nextInt(20);
+                    feed.add(makeTransaction(p + partitions * i, account, amount, random.nextBoolean()));
+                }
+                feeds.add(feed);
+            }
+
+            List<Transaction> swaps = new ArrayList<>();
+            ConcurrentTransactionEngine engine = new ConcurrentTransactionEngine(4) {
+                @Override
+                boolean publish(TransactionPattern current, TransactionPattern next, Transaction txn) {
+                    synchronized (swaps) {
+                        boolean published = super.publish(current, next, txn);
+                        if (published) {
+                            swaps.add(txn);
+                        }
+                        return published;
+                    }
+                }
+            };
+            List<int[]> scores = feedConcurrently(engine, feeds);
+            List<Transaction> order = replayOrder(feeds, scores, swaps, engine.THRESHOLD);
+
+            TransactionEngine replay = new TransactionEngine();
+            Map<Transaction, Integer> expected = new HashMap<>();
+            for (Transaction txn : order) {
+                expected.put(txn, replay.addTransactionAndDetectFraud(txn));
+            }
+            for (int p = 0; p < partitions; p++) {
+                for (int i = 0; i < scores.get(p).length; i++) {
+                    assertEquals(expected.get(feeds.get(p).get(i)), scores.get(p)[i], "round " + round);
+                }
+            }
+            assertEquals(replay.getTransactionPatternAboveThreshold(replay.THRESHOLD),
+                    engine.getTransactionPatternAboveThreshold());
+        }
+    }
+
+    private static List<int[]> feedConcurrently(ConcurrentTransactionEngine engine, List<List<Transaction>> feeds)
+            throws Exception
+    {
+        CyclicBarrier start = new CyclicBarrier(feeds.size());
+        ExecutorService executor = Executors.newFixedThreadPool(feeds.size());
+        try {
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (List<Transaction> feed : feeds) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int[] scores = new int[feed.size()];
+                    for (int i = 0; i < scores.length; i++) {
+                        scores[i] = engine.addTransactionAndDetectFraud(feed.get(i));
+                    }
+                    return scores;
+                }));
+            }
+            List<int[]> scores = new ArrayList<>();
+            for (Future<int[]> future : futures) {
+                scores.add(future.get());
+            }
+            return scores;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * A single order of all transactions that keeps each feed in order and puts the detector swaps in the order
+     * they were recorded: every other transaction is placed after the earliest swap whose detector state it leaves
+     * unchanged and whose value explains its score, which is where a sequencer read could have put it.
+     */
+    private static List<Transaction> replayOrder(List<List<Transaction>> feeds, List<int[]> scores,
+                                                 List<Transaction> swaps, int threshold)
+    {
+        List<TransactionPattern> states = new ArrayList<>();
+        states.add(new TransactionPattern(threshold));
+        Map<Transaction, Integer> swapIndex = new HashMap<>();
+        for (Transaction swap : swaps) {
+            TransactionPattern next = states.get(states.size() - 1).copy();
+            next.accept(swap);
+            swapIndex.put(swap, states.size() - 1);
+            states.add(next);
+        }
+
+        List<List<Transaction>> slots = new ArrayList<>();
+        for (int k = 0; k < states.size(); k++) {
+            slots.add(new ArrayList<>());
+        }
+        for (int p = 0; p < feeds.size(); p++) {
+            AccountTotals accounts = new AccountTotals();
+            int slot = 0;
+            for (int i = 0; i < feeds.get(p).size(); i++) {
+                Transaction txn = feeds.get(p).get(i);
+                int fraudScore = TransactionEngine.fraudScore(txn, accounts.average(txn.accountId));
+                accounts.add(txn.accountId, txn.amount);
+                Integer swap = swapIndex.get(txn);
+                if (swap != null) {
+                    assertTrue(swap >= slot, "swap recorded before an earlier transaction of its feed");
+                    assertEquals(fraudScore != 0 ? fraudScore : states.get(swap).value(), scores.get(p)[i]);
+                    slot = swap + 1;
+                    continue;
+                }
+                while (slot < states.size() && (states.get(slot).changedBy(txn)
+                        || (fraudScore != 0 ? fraudScore : states.get(slot).value()) != scores.get(p)[i])) {
+                    slot++;
+                }
+                assertTrue(slot < states.size(), "no detector state explains the score of " + txn.transactionId);
+                slots.get(slot).add(txn);
+            }
+        }
+
+        List<Transaction> order = new ArrayList<>();
+        for (int k = 0; k < states.size(); k++) {
+            order.addAll(slots.get(k));
+            if (k < swaps.size()) {
+                order.add(swaps.get(k));
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,169 @@
+package domain;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTransactionIdSetTest {
+    private ConcurrentTransactionIdSet ids;
+
+    @BeforeEach
+    public void setUp() {
+        ids = new ConcurrentTransactionIdSet();
+    }
+
+    @Test
+    public void add_When_Repeated_Then_False()
+    {
+        assertFalse(ids.contains(7));
+        assertTrue(ids.add(7));
+        assertFalse(ids.add(7));
+        assertTrue(ids.contains(7));
+        assertFalse(ids.contains(8));
+        assertEquals(1, ids.size());
+    }
+
+    @Test
+    public void add_When_ReservedValues_Then_Contained()
+    {
+        for (int id : new int[]{Integer.MIN_VALUE, Integer.MIN_VALUE + 1, Integer.MAX_VALUE, 0, -1}) {
+            assertTrue(ids.add(id));
+            assertFalse(ids.add(id));
+            assertTrue(ids.contains(id));
+        }
+        assertEquals(5, ids.size());
+    }
+
+    @Test
+    public void contains_When_SentinelIdsNotAdded_Then_FalseEvenWithSealedSlots()
+    {
+        for (int id = 0; id < 100; id++) {
+            assertTrue(ids.add(id));
+        }
+        assertFalse(ids.contains(Integer.MIN_VALUE));
+        assertFalse(ids.contains(Integer.MIN_VALUE + 1));
+        assertEquals(100, ids.size());
+
+        assertTrue(ids.add(Integer.MIN_VALUE + 1));
+        assertFalse(ids.contains(Integer.MIN_VALUE));
+        assertTrue(ids.contains(Integer.MIN_VALUE + 1));
+        assertTrue(ids.add(Integer.MIN_VALUE));
+        assertFalse(ids.add(Integer.MIN_VALUE));
+        assertTrue(ids.contains(Integer.MIN_VALUE));
+        assertEquals(102, ids.size());
+    }
+
+    @Test
+    public void add_When_ResizeInProgress_Then_OldAndNewTablesBothSeen()
+    {
+        AtomicInteger calls = new AtomicInteger();
+        ConcurrentTransactionIdSet[] set = new ConcurrentTransactionIdSet[1];
+        set[0] = new ConcurrentTransactionIdSet(copiedId -> {
+            int call = calls.getAndIncrement();
+            if (call < 40) {
+                assertTrue(set[0].contains(copiedId));
+                assertFalse(set[0].add(copiedId));
+                assertTrue(set[0].add(-1 - call));
+                assertTrue(set[0].contains(-1 - call));
+            }
+        });
+        for (int id = 0; id < 9; id++) {
+            assertTrue(set[0].add(id));
+        }
+
+        assertTrue(calls.get() >= 40);
+        for (int id = -40; id < 9; id++) {
+            assertTrue(set[0].contains(id));
+            assertFalse(set[0].add(id));
+        }
+        assertFalse(set[0].contains(-41));
+        assertFalse(set[0].contains(9));
+        assertEquals(49, set[0].size());
+    }
+
+    @Test
+    public void add_When_HomeSlotSealed_Then_AddedToNextTable()
+    {
+        // ids 1 to 9 sit in their home slots of the first table, none of them in slot 0 or 1, so the resize started
+        // by the ninth add has sealed both of those when it copies 9 out of slot 2; 104 belongs in slot 1
+        for (int id = 1; id <= 9; id++) {
+            assertTrue((TransactionIdSet.hash(id) & 15) >= 2);
+        }
+        assertEquals(2, TransactionIdSet.hash(9) & 15);
+        assertEquals(1, TransactionIdSet.hash(104) & 15);
+        AtomicInteger added = new AtomicInteger();
+        ConcurrentTransactionIdSet[] set = new ConcurrentTransactionIdSet[1];
+        set[0] = new ConcurrentTransactionIdSet(copiedId -> {
+            if (copiedId == 9 && added.getAndIncrement() == 0) {
+                assertTrue(set[0].add(104));
+                assertTrue(set[0].contains(104));
+                assertFalse(set[0].add(104));
+            }
+        });
+        for (int id = 1; id <= 9; id++) {
+            assertTrue(set[0].add(id));
+        }
+
+        assertEquals(1, added.get());
+        for (int id = 1; id <= 9; id++) {
+            assertTrue(set[0].contains(id));
+        }
+        assertTrue(set[0].contains(104));
+        assertFalse(set[0].add(104));
+        assertEquals(10, set[0].size());
+    }
+
+    @Test
+    public void add_When_ManyIds_Then_AllContainedAfterGrowing()
+    {
+        for (int id = 0; id < 50_000; id++) {
+            assertTrue(ids.add(id * 31));
+        }
+        for (int id = 0; id < 50_000; id++) {
+            assertTrue(ids.contains(id * 31));
+            assertFalse(ids.contains(id * 31 + 1));
+        }
+        assertEquals(50_000, ids.size());
+    }
+
+    @Test
+    @Tag("stress")
+    public void add_When_ThreadsRaceForSameIds_Then_EachIdClaimedOnce() throws Exception
+    {
+        int threads = 4;
+        int count = 100_000;
+        AtomicInteger claimed = new AtomicInteger();
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < count; i++) {
+                        if (ids.add((i + offset * 1000) % count)) {
+                            claimed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(count, claimed.get());
+        assertEquals(count, ids.size());
+        for (int id = 0; id < count; id++) {
+            assertTrue(ids.contains(id));
+        }
+    }
+}
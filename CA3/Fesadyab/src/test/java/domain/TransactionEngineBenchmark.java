@@ -0,0 +1,68 @@
+package domain;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one call to {@link TransactionEngine#addTransactionAndDetectFraud} against histories of different
+ * sizes. Run with {@code main} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransactionEngineBenchmark {
+    private static final int ACCOUNTS = 1000;
+    private static final int BATCH = 100;
+
+    @Param({"1000", "10000", "100000"})
+    int historySize;
+
+    TransactionEngine engine;
+    Transaction[] history;
+    int nextId;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        engine = new TransactionEngine();
+        history = new Transaction[historySize];
+        for (int i = 0; i < historySize; i++) {
+            history[i] = TransactionEngineTest.makeTransaction(i, i % ACCOUNTS, 100 + i % 500, i % 3 != 0);
+            engine.transactionHistory.add(history[i]);
+        }
+        nextId = historySize;
+    }
+
+    @Benchmark
+    public int rejectDuplicate() {
+        return engine.addTransactionAndDetectFraud(history[nextId++ % historySize]);
+    }
+
+    @Benchmark
+    public int addNew() {
+        int id = nextId++;
+        return engine.addTransactionAndDetectFraud(TransactionEngineTest.makeTransaction(id, id % ACCOUNTS,
+                100 + id % 500, id % 3 != 0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] addNewBatch() {
+        Transaction[] batch = new Transaction[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            int id = nextId++;
+            batch[i] = TransactionEngineTest.makeTransaction(id, id % ACCOUNTS, 100 + id % 500, id % 3 != 0);
+        }
+        return engine.addTransactionsAndDetectFraud(batch);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransactionEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
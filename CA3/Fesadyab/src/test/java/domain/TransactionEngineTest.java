@@ -2,6 +2,10 @@ package domain;
 
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 public class TransactionEngineTest {
     private TransactionEngine transactionEngine;
 
@@ -159,4 +163,68 @@ public class TransactionEngineTest {
         Assertions.assertEquals(600, transactionEngine.addTransactionAndDetectFraud(txn3));
         Assertions.assertTrue(transactionEngine.transactionHistory.contains(txn3));
     }
+
+    @Test
+    public void addTransactionsAndDetectFraud_When_DuplicateInBatch_Then_Zero()
+    {
+        transactionEngine.transactionHistory.add(makeTransaction(0, 1, 500, false));
+        Transaction[] batch = {
+                makeTransaction(0, 1, 5000, true),
+                makeTransaction(1, 1, 2000, true),
+                makeTransaction(1, 1, 2000, true),
+                makeTransaction(2, 2, 100, false),
+        };
+        Assertions.assertArrayEquals(new int[]{0, 1000, 0, 1500}, transactionEngine.addTransactionsAndDetectFraud(batch));
+        Assertions.assertEquals(3, transactionEngine.transactionHistory.size());
+        Assertions.assertEquals(1250, transactionEngine.getAverageTransactionAmountByAccount(1));
+    }
+
+    @Test
+    public void addTransactionsAndDetectFraud_When_Batch_Then_IdIndexSizedBeforeFirstAdd()
+    {
+        List<Integer> capacities = new ArrayList<>();
+        transactionEngine.transactionHistory = new TransactionHistory() {
+            @Override
+            public boolean add(Transaction txn) {
+                capacities.add(idCapacity());
+                return super.add(txn);
+            }
+        };
+        for (int id = 0; id < 10; id++) {
+            transactionEngine.addTransactionAndDetectFraud(makeTransaction(id, 1, 100, false));
+        }
+        capacities.clear();
+        List<Transaction> batch = new ArrayList<>();
+        for (int id = 10; id < 120; id++) {
+            batch.add(makeTransaction(id, 1, 100, false));
+        }
+
+        transactionEngine.addTransactionsAndDetectFraud(batch);
+
+        // 120 ids need 256 slots; growing on the way would show smaller tables for the first adds
+        Assertions.assertEquals(110, capacities.size());
+        Assertions.assertTrue(capacities.stream().allMatch(capacity -> capacity == 256));
+        Assertions.assertEquals(256, transactionEngine.transactionHistory.idCapacity());
+    }
+
+    @Test
+    public void addTransactionsAndDetectFraud_When_RandomBatches_Then_SameAsOneByOne()
+    {
+        Random random = new Random(7);
+        TransactionEngine oneByOne = new TransactionEngine();
+        for (int batch = 0; batch < 200; batch++) {
+            List<Transaction> txns = new ArrayList<>();
+            int size = random.nextInt(20);
+            for (int i = 0; i < size; i++) {
+                int amount = random.nextInt(4) == 0 ? 1000 + 100 * random.nextInt(8) : 100 + random.nextInt(1600);
+                txns.add(makeTransaction(random.nextInt(2000), random.nextInt(10), amount, random.nextBoolean()));
+            }
+            int[] expected = new int[size];
+            for (int i = 0; i < size; i++) {
+                expected[i] = oneByOne.addTransactionAndDetectFraud(txns.get(i));
+            }
+            Assertions.assertArrayEquals(expected, transactionEngine.addTransactionsAndDetectFraud(txns));
+        }
+        Assertions.assertEquals(oneByOne.transactionHistory, transactionEngine.transactionHistory);
+    }
 }
@@ -0,0 +1,128 @@
+package domain;
+
+import org.junit.jupiter.api.*;
+
+import static domain.TransactionEngineTest.makeTransaction;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionHistoryTest {
+    private TransactionHistory history;
+
+    @BeforeEach
+    public void setUp() {
+        history = new TransactionHistory();
+    }
+
+    @Test
+    public void containsId_When_Added_Then_True()
+    {
+        assertTrue(history.add(makeTransaction(5, 1, 100, true)));
+        assertTrue(history.containsId(5));
+        assertFalse(history.containsId(6));
+        assertTrue(history.contains(makeTransaction(5, 2, 300, false)));
+        assertFalse(history.contains("5"));
+        assertFalse(history.contains(null));
+        history.add(null);
+        assertTrue(history.contains(null));
+    }
+
+    @Test
+    public void containsId_When_Removed_Then_False()
+    {
+        history.add(makeTransaction(5, 1, 100, true));
+        history.add(makeTransaction(6, 1, 100, true));
+        history.remove(0);
+        assertFalse(history.containsId(5));
+        assertTrue(history.containsId(6));
+    }
+
+    @Test
+    public void containsId_When_Replaced_Then_NewIdOnly()
+    {
+        history.add(makeTransaction(5, 1, 100, true));
+        assertEquals(5, history.set(0, makeTransaction(9, 1, 100, true)).getTransactionId());
+        assertFalse(history.containsId(5));
+        assertTrue(history.containsId(9));
+    }
+
+    @Test
+    public void containsId_When_AddedAfterOtherChange_Then_True()
+    {
+        history.add(0, makeTransaction(5, 1, 100, true));
+        history.add(makeTransaction(6, 1, 100, true));
+        assertTrue(history.containsId(5));
+        assertTrue(history.containsId(6));
+        history.clear();
+        assertFalse(history.containsId(5));
+    }
+
+    @Test
+    public void containsId_When_CapacityEnsured_Then_StillIndexed()
+    {
+        history.add(makeTransaction(5, 1, 100, true));
+        history.ensureCapacity(1000);
+        history.add(makeTransaction(6, 1, 300, true));
+        assertTrue(history.containsId(5));
+        assertTrue(history.containsId(6));
+        assertEquals(200, history.averageAmount(1));
+    }
+
+    @Test
+    public void averageAmount_When_Added_Then_IntegerAverageOfAccount()
+    {
+        history.add(makeTransaction(1, 1, 100, true));
+        history.add(makeTransaction(2, 1, 205, false));
+        history.add(makeTransaction(3, 2, 999, true));
+        assertEquals(152, history.averageAmount(1));
+        assertEquals(999, history.averageAmount(2));
+        assertEquals(0, history.averageAmount(3));
+        history.remove(2);
+        assertEquals(0, history.averageAmount(2));
+    }
+
+    @Test
+    public void averageAmount_When_SumOverflows_Then_SameAsIntLoop()
+    {
+        int total = 0;
+        for (int i = 0; i < 5; i++) {
+            history.add(makeTransaction(i, 1, Integer.MAX_VALUE - i, true));
+            total += Integer.MAX_VALUE - i;
+        }
+        assertEquals(total / 5, history.averageAmount(1));
+    }
+
+    @Test
+    public void subList_When_Written_Then_UnsupportedAndIndexesKept()
+    {
+        history.add(makeTransaction(5, 1, 100, true));
+        history.add(makeTransaction(6, 1, 300, true));
+        assertEquals(6, history.subList(1, 2).get(0).getTransactionId());
+        assertThrows(UnsupportedOperationException.class,
+                () -> history.subList(0, 1).set(0, makeTransaction(9, 2, 700, true)));
+        assertThrows(UnsupportedOperationException.class, () -> history.subList(0, 2).clear());
+        assertTrue(history.containsId(5));
+        assertFalse(history.containsId(9));
+        assertEquals(200, history.averageAmount(1));
+    }
+
+    @Test
+    public void averageAmount_When_ChangedThroughListMethods_Then_Reindexed()
+    {
+        history.add(makeTransaction(5, 1, 100, true));
+        history.add(makeTransaction(6, 1, 300, true));
+        assertEquals(200, history.averageAmount(1));
+        history.set(0, makeTransaction(5, 1, 500, true));
+        assertEquals(400, history.averageAmount(1));
+        history.replaceAll(txn -> makeTransaction(txn.getTransactionId(), 2, txn.getAmount(), true));
+        assertEquals(0, history.averageAmount(1));
+        assertEquals(400, history.averageAmount(2));
+        var iterator = history.listIterator();
+        iterator.next();
+        iterator.set(makeTransaction(7, 2, 100, true));
+        assertFalse(history.containsId(5));
+        assertEquals(200, history.averageAmount(2));
+        history.sort((a, b) -> b.getTransactionId() - a.getTransactionId());
+        assertEquals(7, history.get(0).getTransactionId());
+        assertEquals(200, history.averageAmount(2));
+    }
+}
@@ -0,0 +1,105 @@
+package domain;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionIdSetTest {
+    private TransactionIdSet ids;
+
+    @BeforeEach
+    public void setUp() {
+        ids = new TransactionIdSet();
+    }
+
+    @Test
+    public void add_When_NewId_Then_Contained()
+    {
+        assertFalse(ids.contains(7));
+        assertTrue(ids.add(7));
+        assertTrue(ids.contains(7));
+        assertFalse(ids.contains(8));
+        assertEquals(1, ids.size());
+    }
+
+    @Test
+    public void add_When_Repeated_Then_False()
+    {
+        assertTrue(ids.add(7));
+        assertFalse(ids.add(7));
+        assertEquals(1, ids.size());
+    }
+
+    @Test
+    public void add_When_ExtremeIds_Then_Contained()
+    {
+        for (int id : new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1}) {
+            assertFalse(ids.contains(id));
+            assertTrue(ids.add(id));
+            assertFalse(ids.add(id));
+            assertTrue(ids.contains(id));
+        }
+        assertEquals(4, ids.size());
+    }
+
+    @Test
+    public void ensureCapacity_When_Filled_Then_IdsKept()
+    {
+        ids.add(3);
+        ids.add(Integer.MIN_VALUE);
+        ids.ensureCapacity(1000);
+        ids.ensureCapacity(10);
+        for (int id = 4; id < 1000; id++) {
+            assertTrue(ids.add(id));
+        }
+        assertTrue(ids.contains(3));
+        assertTrue(ids.contains(Integer.MIN_VALUE));
+        assertEquals(998, ids.size());
+    }
+
+    @Test
+    public void capacityFor_When_Expected_Then_SmallestPowerOfTwoAtMostHalfFull()
+    {
+        assertEquals(16, TransactionIdSet.capacityFor(8, 16));
+        assertEquals(32, TransactionIdSet.capacityFor(9, 16));
+        assertEquals(64, TransactionIdSet.capacityFor(3, 64));
+        assertEquals(2048, TransactionIdSet.capacityFor(1000, 16));
+    }
+
+    @Test
+    public void capacityFor_When_BeyondMaxCapacity_Then_Clamped()
+    {
+        assertEquals(TransactionIdSet.MAX_CAPACITY, TransactionIdSet.capacityFor((1 << 29) + 1, 16));
+        assertEquals(TransactionIdSet.MAX_CAPACITY, TransactionIdSet.capacityFor(Integer.MAX_VALUE, 16));
+    }
+
+    @Test
+    public void clear_When_Filled_Then_Empty()
+    {
+        ids.add(Integer.MIN_VALUE);
+        ids.add(3);
+        ids.clear();
+        assertFalse(ids.contains(Integer.MIN_VALUE));
+        assertFalse(ids.contains(3));
+        assertEquals(0, ids.size());
+    }
+
+    @Test
+    public void add_When_ManyRandomIds_Then_SameAsHashSet()
+    {
+        Random random = new Random(1);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            int id = random.nextInt(50_000) - 25_000;
+            assertEquals(expected.add(id), ids.add(id));
+        }
+        assertEquals(expected.size(), ids.size());
+        for (int id = -30_000; id < 30_000; id++) {
+            assertEquals(expected.contains(id), ids.contains(id));
+        }
+    }
+}
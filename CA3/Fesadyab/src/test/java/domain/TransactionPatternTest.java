@@ -0,0 +1,165 @@
+package domain;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.Random;
+
+import static domain.TransactionEngineTest.makeTransaction;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionPatternTest {
+    private static final int[] THRESHOLDS = {0, 1000, 1100, 1300, 1500};
+
+    private TransactionEngine transactionEngine;
+
+    @BeforeEach
+    public void setUp() {
+        transactionEngine = new TransactionEngine();
+    }
+
+    /**
+     * The full-history scan the engine used before the detector was made incremental.
+     */
+    private static int scan(List<Transaction> history, int threshold) {
+        if (history.isEmpty()) {
+            return 0;
+        }
+
+        var diff = 0;
+        var previous = history.get(0);
+
+        for (Transaction txn : history) {
+            if (txn.transactionId == previous.transactionId) {
+                continue;
+            }
+
+            if (txn.amount <= threshold) {
+                continue;
+            }
+
+            if (diff == 0) {
+                diff = txn.amount - previous.amount;
+                previous = txn;
+            } else if (diff != txn.amount - previous.amount) {
+                return 0;
+            }
+        }
+
+        return diff;
+    }
+
+    private static Transaction randomTransaction(Random random, int idRange) {
+        int amount = random.nextInt(4) == 0 ? 1000 + 100 * random.nextInt(8) : 900 + random.nextInt(800);
+        return makeTransaction(random.nextInt(idRange), random.nextInt(3), amount, random.nextBoolean());
+    }
+
+    @Test
+    public void accept_When_StepFixed_Then_LaterTransactionsComparedWithReference()
+    {
+        TransactionPattern pattern = new TransactionPattern(1000);
+        pattern.accept(makeTransaction(0, 1, 1200, true));
+        pattern.accept(makeTransaction(1, 1, 1800, true));
+        assertEquals(600, pattern.value());
+        pattern.accept(makeTransaction(2, 1, 2400, true));
+        pattern.accept(makeTransaction(1, 1, 5, true));
+        pattern.accept(makeTransaction(3, 1, 900, true));
+        assertEquals(600, pattern.value());
+        pattern.accept(makeTransaction(4, 1, 3000, true));
+        assertEquals(0, pattern.value());
+        pattern.accept(makeTransaction(5, 1, 2400, true));
+        assertEquals(0, pattern.value());
+    }
+
+    @Test
+    public void addTransactionAndDetectFraud_When_RandomStream_Then_SameAsScan()
+    {
+        for (long seed = 0; seed < 200; seed++) {
+            Random random = new Random(seed);
+            TransactionEngine engine = new TransactionEngine();
+            for (int step = 0; step < 60; step++) {
+                Transaction txn = randomTransaction(random, 80);
+                int expected = expectedScore(engine, txn);
+                assertEquals(expected, engine.addTransactionAndDetectFraud(txn), "seed " + seed + " step " + step);
+            }
+        }
+    }
+
+    private static int expectedScore(TransactionEngine engine, Transaction txn) {
+        if (engine.transactionHistory.contains(txn)) {
+            return 0;
+        }
+        int score = engine.detectFraudulentTransaction(txn);
+        return score != 0 ? score : scan(engine.transactionHistory, engine.THRESHOLD);
+    }
+
+    @Test
+    public void getTransactionPatternAboveThreshold_When_HistoryModified_Then_SameAsScan()
+    {
+        for (long seed = 0; seed < 200; seed++) {
+            Random random = new Random(seed);
+            TransactionHistory history = transactionEngine.transactionHistory;
+            history.clear();
+            for (int step = 0; step < 80; step++) {
+                int change = random.nextInt(10);
+                if (change == 0 && !history.isEmpty()) {
+                    history.remove(random.nextInt(history.size()));
+                } else if (change == 1 && !history.isEmpty()) {
+                    history.set(random.nextInt(history.size()), randomTransaction(random, 20));
+                } else {
+                    history.add(randomTransaction(random, 20));
+                }
+                int threshold = THRESHOLDS[random.nextInt(THRESHOLDS.length)];
+                assertEquals(scan(history, threshold), transactionEngine.getTransactionPatternAboveThreshold(threshold),
+                        "seed " + seed + " step " + step);
+            }
+        }
+    }
+
+    @Test
+    public void changedBy_When_EachState_Then_TrueOnlyForStateChanges()
+    {
+        TransactionPattern pattern = new TransactionPattern(1000);
+        assertTrue(pattern.changedBy(makeTransaction(1, 1, 10, true)));
+        pattern.accept(makeTransaction(1, 1, 1200, true));
+
+        assertFalse(pattern.changedBy(makeTransaction(1, 1, 1500, true)));
+        assertFalse(pattern.changedBy(makeTransaction(2, 1, 1000, true)));
+        assertTrue(pattern.changedBy(makeTransaction(2, 1, 1001, true)));
+        assertTrue(pattern.changedBy(makeTransaction(2, 1, 1200, true)));
+        pattern.accept(makeTransaction(2, 1, 1300, true));
+
+        assertEquals(100, pattern.value());
+        assertFalse(pattern.changedBy(makeTransaction(3, 1, 1400, false)));
+        assertFalse(pattern.changedBy(makeTransaction(2, 1, 1700, true)));
+        assertFalse(pattern.changedBy(makeTransaction(3, 1, 900, true)));
+        assertTrue(pattern.changedBy(makeTransaction(3, 1, 1300, true)));
+        pattern.accept(makeTransaction(3, 1, 1300, true));
+
+        assertEquals(0, pattern.value());
+        assertFalse(pattern.changedBy(makeTransaction(4, 1, 1300, true)));
+        assertFalse(pattern.changedBy(makeTransaction(5, 1, 5000, true)));
+    }
+
+    @Test
+    public void changedBy_When_False_Then_AcceptLeavesStateAlone()
+    {
+        Random random = new Random(4);
+        for (int run = 0; run < 200; run++) {
+            TransactionPattern pattern = new TransactionPattern(THRESHOLDS[run % THRESHOLDS.length]);
+            for (int step = 0; step < 30; step++) {
+                Transaction txn = randomTransaction(random, 10);
+                TransactionPattern accepted = pattern.copy();
+                accepted.accept(txn);
+                if (!pattern.changedBy(txn)) {
+                    assertEquals(pattern.value(), accepted.value());
+                    for (int probe = 0; probe < 20; probe++) {
+                        Transaction next = randomTransaction(random, 10);
+                        assertEquals(pattern.changedBy(next), accepted.changedBy(next));
+                    }
+                }
+                pattern = accepted;
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package mizdooni.controllers;
 import mizdooni.filters.LoginRequired;
 import mizdooni.model.Reservation;
 import mizdooni.response.Response;
+import mizdooni.response.RestaurantReservations;
 import mizdooni.response.ResponseException;
 import mizdooni.service.ReservationService;
 import mizdooni.service.RestaurantService;
@@ -45,6 +46,36 @@ public class ReservationController {
         }
     }
 
+    @GetMapping(value = "/reserves/{restaurantId}", params = {"table", "from", "to"})
+    public Response getReservations(@PathVariable int restaurantId,
+                                    @RequestParam int table,
+                                    @RequestParam String from,
+                                    @RequestParam String to) {
+        ControllerUtils.checkRestaurant(restaurantId, restaurantService);
+        DateRange range = parseDateRange(from, to);
+        try {
+            List<Reservation> reservations = reserveService.getReservations(restaurantId, table, range.from(), range.to());
+            return Response.ok("restaurant table reservations", reservations);
+        } catch (Exception ex) {
+            throw new ResponseException(HttpStatus.BAD_REQUEST, ex);
+        }
+    }
+
+    @GetMapping(value = "/reserves/{restaurantId}", params = {"from", "to", "!table"})
+    public Response getRestaurantReservations(@PathVariable int restaurantId,
+                                              @RequestParam String from,
+                                              @RequestParam String to) {
+        ControllerUtils.checkRestaurant(restaurantId, restaurantService);
+        DateRange range = parseDateRange(from, to);
+        try {
+            RestaurantReservations reservations = reserveService.getRestaurantReservations(restaurantId, range.from(),
+                    range.to());
+            return Response.ok("restaurant reservations", reservations);
+        } catch (Exception ex) {
+            throw new ResponseException(HttpStatus.BAD_REQUEST, ex);
+        }
+    }
+
     @GetMapping("/reserves/customer/{customerId}")
     public Response getCustomerReservations(@PathVariable int customerId) {
         try {
@@ -75,6 +106,23 @@ public class ReservationController {
         }
     }
 
+    @GetMapping("/reserves/{restaurantId}/calendar")
+    public Response getAvailabilityCalendar(@PathVariable int restaurantId,
+                                            @RequestParam int people,
+                                            @RequestParam String from,
+                                            @RequestParam String to) {
+        ControllerUtils.checkRestaurant(restaurantId, restaurantService);
+        DateRange range = parseDateRange(from, to);
+
+        try {
+            Map<LocalDate, List<LocalTime>> calendar = reserveService.getAvailabilityCalendar(restaurantId, people,
+                    range.from(), range.to());
+            return Response.ok("available times", calendar);
+        } catch (Exception ex) {
+            throw new ResponseException(HttpStatus.BAD_REQUEST, ex);
+        }
+    }
+
     @PostMapping("/reserves/{restaurantId}")
     public Response addReservation(@PathVariable int restaurantId, @RequestBody Map<String, String> params) {
         ControllerUtils.checkRestaurant(restaurantId, restaurantService);
@@ -109,4 +157,15 @@ public class ReservationController {
             throw new ResponseException(HttpStatus.BAD_REQUEST, ex);
         }
     }
+
+    private record DateRange(LocalDate from, LocalDate to) {
+    }
+
+    private static DateRange parseDateRange(String from, String to) {
+        try {
+            return new DateRange(LocalDate.parse(from, DATE_FORMATTER), LocalDate.parse(to, DATE_FORMATTER));
+        } catch (Exception ex) {
+            throw new ResponseException(HttpStatus.BAD_REQUEST, PARAMS_BAD_TYPE);
+        }
+    }
 }
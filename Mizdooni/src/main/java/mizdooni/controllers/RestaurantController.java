@@ -3,6 +3,7 @@ package mizdooni.controllers;
 import mizdooni.model.Address;
 import mizdooni.model.Restaurant;
 import mizdooni.model.RestaurantSearchFilter;
+import mizdooni.response.CursorPage;
 import mizdooni.response.PagedList;
 import mizdooni.response.Response;
 import mizdooni.response.ResponseException;
@@ -39,6 +40,17 @@ class RestaurantController {
         }
     }
 
+    @GetMapping(value = "/restaurants", params = "cursor")
+    public Response getRestaurants(@RequestParam String cursor, @RequestParam(defaultValue = "false") boolean total,
+                                   RestaurantSearchFilter filter) {
+        try {
+            CursorPage<Restaurant> restaurants = restaurantService.getRestaurants(cursor, filter, total);
+            return Response.ok("restaurants listed", restaurants);
+        } catch (Exception ex) {
+            throw new ResponseException(HttpStatus.BAD_REQUEST, ex);
+        }
+    }
+
     @GetMapping("/restaurants/manager/{managerId}")
     public Response getManagerRestaurants(@PathVariable int managerId) {
         try {
@@ -1,118 +1,377 @@
 package mizdooni.database;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import mizdooni.model.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Bulk loads the data files. Every file is streamed into compact rows on its own thread; the rows are then
+ * applied in dependency order (users, restaurants, tables, reviews), each one waiting only for its own file,
+ * and references are resolved through the database's name indexes, so loading is linear in the data size.
+ * <p>
+ * The same readers replay the records of the {@link WriteAheadLog}.
+ */
 public class DataLoader {
     private Database db;
+    private Path dataDir;
+    private Map<User, BitSet> reservationNumbers = new HashMap<>();
 
     public DataLoader(Database database) {
+        this(database, JsonReader.DATA_DIR);
+    }
+
+    public DataLoader(Database database, Path dataDir) {
         db = database;
+        this.dataDir = dataDir;
     }
 
     public void read() {
-        readUsers();
-        readRestaurants();
-        readTables();
-        readReviews();
+        ExecutorService parsers = Executors.newFixedThreadPool(JsonReader.File.values().length);
+        try {
+            CompletableFuture<List<UserRow>> users = parse(parsers, JsonReader.File.USERS, DataLoader::readUser);
+            CompletableFuture<List<RestaurantRow>> restaurants = parse(parsers, JsonReader.File.RESTAURANTS, DataLoader::readRestaurant);
+            CompletableFuture<List<TableRow>> tables = parse(parsers, JsonReader.File.TABLES, DataLoader::readTable);
+            CompletableFuture<List<ReviewRow>> reviews = parse(parsers, JsonReader.File.REVIEWS, DataLoader::readReview);
+
+            addUsers(users.join());
+            addRestaurants(restaurants.join());
+            addTables(tables.join());
+            addReviews(reviews.join());
+        } finally {
+            parsers.shutdown();
+        }
     }
 
-    private void readUsers() {
-        JsonNode usersList = JsonReader.readData(JsonReader.File.USERS);
-        if (usersList == null) {
-            return;
+    /**
+     * Applies one record of the write-ahead log. Records may already be reflected in a snapshot the log is
+     * replayed on, so entities that already exist are left alone. Records are in the order the changes were made,
+     * so a cancellation always follows its reservation.
+     * A review is skipped if the user's current review is the same one or a later one, which keeps the
+     * restaurant's review order as it was.
+     */
+    void replay(byte type, byte[] payload) throws IOException {
+        switch (type) {
+            case LogRecords.USER -> {
+                UserRow row = JsonReader.readRecord(payload, DataLoader::readUser);
+                if (findUser(row.username()) == null) {
+                    addUsers(List.of(row));
+                }
+            }
+            case LogRecords.RESTAURANT -> {
+                RestaurantRow row = JsonReader.readRecord(payload, DataLoader::readRestaurant);
+                if (findRestaurant(row.name()) == null) {
+                    addRestaurants(List.of(row));
+                }
+            }
+            case LogRecords.TABLE -> {
+                TableRow row = JsonReader.readRecord(payload, DataLoader::readTable);
+                Restaurant restaurant = findRestaurant(row.restaurantName());
+                if (restaurant != null && restaurant.getTable(row.tableNumber()) == null) {
+                    addTables(List.of(row));
+                }
+            }
+            case LogRecords.REVIEW -> {
+                ReviewRow row = JsonReader.readRecord(payload, DataLoader::readReview);
+                if (!isReviewApplied(row)) {
+                    addReviews(List.of(row));
+                }
+            }
+            case LogRecords.RESERVATION -> addReservation(JsonReader.readRecord(payload, DataLoader::readReservation));
+            case LogRecords.CANCELLATION -> cancelReservation(JsonReader.readRecord(payload, DataLoader::readCancellation));
+            default -> throw new IOException("unknown log record type " + type);
+        }
+    }
+
+    private <T> CompletableFuture<List<T>> parse(ExecutorService executor, JsonReader.File file,
+                                                 JsonReader.ObjectReader<T> reader) {
+        return CompletableFuture.supplyAsync(() -> JsonReader.readData(dataDir, file, reader), executor);
+    }
+
+    private void addUsers(List<UserRow> rows) {
+        for (UserRow row : rows) {
+            Address address = row.address() == null ? null : new Address(row.address().getCountry(), row.address().getCity(), null);
+            db.addUser(new User(row.username(), row.password(), row.email(), address, User.Role.valueOf(row.role())));
         }
+    }
 
-        for (JsonNode node : usersList) {
-            String role = node.get("role").asText();
-            String country = node.get("address").get("country").asText();
-            String city = node.get("address").get("city").asText();
-            User user = new User(
-                    node.get("username").asText(),
-                    node.get("password").asText(),
-                    node.get("email").asText(),
-                    new Address(country, city, null),
-                    User.Role.valueOf(role)
+    private void addRestaurants(List<RestaurantRow> rows) {
+        for (RestaurantRow row : rows) {
+            User manager = findUser(row.managerUsername());
+            Restaurant restaurant = new Restaurant(
+                    row.name(),
+                    manager,
+                    row.type(),
+                    LocalTime.parse(row.startTime()),
+                    LocalTime.parse(row.endTime()),
+                    row.description(),
+                    row.address(),
+                    row.image()
             );
-            db.users.add(user);
+            db.addRestaurant(restaurant);
         }
     }
 
-    private void readRestaurants() {
-        JsonNode restaurantsList = JsonReader.readData(JsonReader.File.RESTAURANTS);
-        if (restaurantsList == null) {
-            return;
+    private void addTables(List<TableRow> rows) {
+        Map<Restaurant, List<Table>> tablesByRestaurant = new LinkedHashMap<>();
+        for (TableRow row : rows) {
+            Restaurant restaurant = findRestaurant(row.restaurantName());
+            if (restaurant == null) {
+                continue;
+            }
+            tablesByRestaurant.computeIfAbsent(restaurant, k -> new ArrayList<>())
+                    .add(new Table(row.tableNumber(), restaurant.getId(), row.seatsNumber()));
         }
+        tablesByRestaurant.forEach(Restaurant::addTables);
+    }
 
-        for (JsonNode node : restaurantsList) {
-            User manager = getUserByUsername(node.get("managerUsername").asText());
+    private void addReviews(List<ReviewRow> rows) {
+        for (ReviewRow row : rows) {
+            Restaurant restaurant = findRestaurant(row.restaurantName());
+            if (restaurant == null) {
+                continue;
+            }
+            User user = findUser(row.username());
+            LocalDateTime datetime = row.datetime() == null ? LocalDateTime.now() : row.datetime();
+            db.addReview(restaurant, new Review(user, row.rating(), row.comment(), datetime));
+        }
+    }
 
-            LocalTime startTime = LocalTime.parse(node.get("startTime").asText());
-            LocalTime endTime = LocalTime.parse(node.get("endTime").asText());
+    /**
+     * Whether the user's current review of the restaurant is this one or a later one.
+     */
+    private boolean isReviewApplied(ReviewRow row) {
+        Restaurant restaurant = findRestaurant(row.restaurantName());
+        User user = findUser(row.username());
+        Review current = restaurant == null || user == null ? null : restaurant.getReview(user);
+        if (current == null || row.datetime() == null || current.getDatetime() == null) {
+            return false;
+        }
+        if (current.getDatetime().isAfter(row.datetime())) {
+            return true;
+        }
+        Rating rating = current.getRating();
+        return current.getDatetime().equals(row.datetime()) && Objects.equals(current.getComment(), row.comment())
+                && rating.food == row.rating().food && rating.service == row.rating().service
+                && rating.ambiance == row.rating().ambiance && rating.overall == row.rating().overall;
+    }
 
-            String country = node.get("address").get("country").asText();
-            String city = node.get("address").get("city").asText();
-            String street = node.get("address").get("street").asText();
+    private void addReservation(ReservationRow row) {
+        User user = findUser(row.username());
+        Restaurant restaurant = findRestaurant(row.restaurantName());
+        Table table = restaurant == null ? null : restaurant.getTable(row.tableNumber());
+        if (user == null || table == null || hasReservation(user, row.reservationNumber())) {
+            return;
+        }
+        Reservation reservation = new Reservation(user, restaurant, table, row.datetime());
+        reservation.setReservationNumber(row.reservationNumber());
+        table.addReservation(reservation);
+        user.addReservation(reservation);
+        if (row.reservationNumber() >= 0) {
+            reservationNumbers.get(user).set(row.reservationNumber());
+        }
+        db.restoreReservation(reservation);
+    }
 
-            Restaurant restaurant = new Restaurant(
-                    node.get("name").asText(),
-                    manager,
-                    node.get("type").asText(),
-                    startTime,
-                    endTime,
-                    node.get("description").asText(),
-                    new Address(country, city, street),
-                    node.get("image").asText()
-            );
-            db.restaurants.add(restaurant);
+    /**
+     * Whether the user already has a reservation with this number. The numbers a user had before replay started
+     * are collected once, on the user's first replayed reservation, and replayed ones are added as they go.
+     */
+    private boolean hasReservation(User user, int reservationNumber) {
+        BitSet numbers = reservationNumbers.computeIfAbsent(user, DataLoader::reservationNumbers);
+        return reservationNumber >= 0 && numbers.get(reservationNumber);
+    }
+
+    private static BitSet reservationNumbers(User user) {
+        BitSet numbers = new BitSet();
+        for (Reservation reservation : user.getReservations()) {
+            if (reservation.getReservationNumber() >= 0) {
+                numbers.set(reservation.getReservationNumber());
+            }
         }
+        return numbers;
     }
 
-    private void readTables() {
-        JsonNode tablesList = JsonReader.readData(JsonReader.File.TABLES);
-        if (tablesList == null) {
-            return;
+    private void cancelReservation(CancellationRow row) {
+        User user = findUser(row.username());
+        Reservation reservation = user == null ? null : user.getReservation(row.reservationNumber());
+        if (reservation != null) {
+            reservation.cancel();
+            db.restoreReservation(reservation);
         }
+    }
 
-        for (JsonNode node : tablesList) {
-            Restaurant restaurant = getRestaurantByName(node.get("restaurantName").asText());
+    private User findUser(String username) {
+        return username == null ? null : db.findUserByUsername(username);
+    }
 
-            int tableNumber = node.get("tableNumber").asInt();
-            int seatsNumber = node.get("seatsNumber").asInt();
-            Table table = new Table(tableNumber, restaurant.getId(), seatsNumber);
-            restaurant.addTable(table);
+    private Restaurant findRestaurant(String name) {
+        return name == null ? null : db.findRestaurantByName(name);
+    }
+
+    private static UserRow readUser(JsonParser parser) throws IOException {
+        String username = null, password = null, email = null, role = null;
+        Address address = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "username" -> username = JsonReader.text(parser);
+                case "password" -> password = JsonReader.text(parser);
+                case "email" -> email = JsonReader.text(parser);
+                case "role" -> role = JsonReader.text(parser);
+                case "address" -> address = readAddress(parser);
+                default -> parser.skipChildren();
+            }
         }
+        return new UserRow(username, password, email, role, address);
     }
 
-    private void readReviews() {
-        JsonNode reviewsList = JsonReader.readData(JsonReader.File.REVIEWS);
-        if (reviewsList == null) {
-            return;
+    private static RestaurantRow readRestaurant(JsonParser parser) throws IOException {
+        String name = null, managerUsername = null, type = null, startTime = null, endTime = null;
+        String description = null, image = null;
+        Address address = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "name" -> name = JsonReader.text(parser);
+                case "managerUsername" -> managerUsername = JsonReader.text(parser);
+                case "type" -> type = JsonReader.text(parser);
+                case "startTime" -> startTime = JsonReader.text(parser);
+                case "endTime" -> endTime = JsonReader.text(parser);
+                case "description" -> description = JsonReader.text(parser);
+                case "image" -> image = JsonReader.text(parser);
+                case "address" -> address = readAddress(parser);
+                default -> parser.skipChildren();
+            }
         }
+        return new RestaurantRow(name, managerUsername, type, startTime, endTime, description, image, address);
+    }
 
-        for (JsonNode node : reviewsList) {
-            Restaurant restaurant = getRestaurantByName(node.get("restaurantName").asText());
-            User user = getUserByUsername(node.get("username").asText());
+    private static TableRow readTable(JsonParser parser) throws IOException {
+        String restaurantName = null;
+        int tableNumber = 0, seatsNumber = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "restaurantName" -> restaurantName = JsonReader.text(parser);
+                case "tableNumber" -> tableNumber = parser.getValueAsInt();
+                case "seatsNumber" -> seatsNumber = parser.getValueAsInt();
+                default -> parser.skipChildren();
+            }
+        }
+        return new TableRow(restaurantName, tableNumber, seatsNumber);
+    }
 
-            Rating rating = new Rating();
-            rating.food = node.get("foodRate").asDouble();
-            rating.service = node.get("serviceRate").asDouble();
-            rating.ambiance = node.get("ambianceRate").asDouble();
-            rating.overall = node.get("overallRate").asDouble();
+    private static ReviewRow readReview(JsonParser parser) throws IOException {
+        String restaurantName = null, username = null, comment = null;
+        LocalDateTime datetime = null;
+        Rating rating = new Rating();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "restaurantName" -> restaurantName = JsonReader.text(parser);
+                case "username" -> username = JsonReader.text(parser);
+                case "foodRate" -> rating.food = parser.getValueAsDouble();
+                case "serviceRate" -> rating.service = parser.getValueAsDouble();
+                case "ambianceRate" -> rating.ambiance = parser.getValueAsDouble();
+                case "overallRate" -> rating.overall = parser.getValueAsDouble();
+                case "comment" -> comment = JsonReader.text(parser);
+                case "datetime" -> datetime = LocalDateTime.parse(JsonReader.text(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return new ReviewRow(restaurantName, username, rating, comment, datetime);
+    }
 
-            String comment = node.get("comment").asText();
-            restaurant.addReview(new Review(user, rating, comment, LocalDateTime.now()));
+    private static ReservationRow readReservation(JsonParser parser) throws IOException {
+        String username = null, restaurantName = null;
+        int tableNumber = 0, reservationNumber = -1;
+        LocalDateTime datetime = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "username" -> username = JsonReader.text(parser);
+                case "restaurantName" -> restaurantName = JsonReader.text(parser);
+                case "tableNumber" -> tableNumber = parser.getValueAsInt();
+                case "datetime" -> datetime = LocalDateTime.parse(JsonReader.text(parser));
+                case "reservationNumber" -> reservationNumber = parser.getValueAsInt();
+                default -> parser.skipChildren();
+            }
         }
+        return new ReservationRow(username, restaurantName, tableNumber, datetime, reservationNumber);
+    }
+
+    private static CancellationRow readCancellation(JsonParser parser) throws IOException {
+        String username = null;
+        int reservationNumber = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "username" -> username = JsonReader.text(parser);
+                case "reservationNumber" -> reservationNumber = parser.getValueAsInt();
+                default -> parser.skipChildren();
+            }
+        }
+        return new CancellationRow(username, reservationNumber);
+    }
+
+    private static Address readAddress(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String country = null, city = null, street = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "country" -> country = JsonReader.text(parser);
+                case "city" -> city = JsonReader.text(parser);
+                case "street" -> street = JsonReader.text(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Address(country, city, street);
+    }
+
+    private record UserRow(String username, String password, String email, String role, Address address) {
+    }
+
+    private record RestaurantRow(String name, String managerUsername, String type, String startTime, String endTime,
+                                 String description, String image, Address address) {
+    }
+
+    private record TableRow(String restaurantName, int tableNumber, int seatsNumber) {
+    }
+
+    private record ReviewRow(String restaurantName, String username, Rating rating, String comment,
+                             LocalDateTime datetime) {
     }
 
-    private User getUserByUsername(String username) {
-        return db.users.stream().filter(u -> u.getUsername().equals(username)).findFirst().orElse(null);
+    private record ReservationRow(String username, String restaurantName, int tableNumber, LocalDateTime datetime,
+                                  int reservationNumber) {
     }
 
-    private Restaurant getRestaurantByName(String name) {
-        return db.restaurants.stream().filter(r -> r.getName().equals(name)).findFirst().orElse(null);
+    private record CancellationRow(String username, int reservationNumber) {
     }
 }
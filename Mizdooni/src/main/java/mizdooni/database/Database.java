@@ -1,20 +1,409 @@
 package mizdooni.database;
 
-import mizdooni.model.Restaurant;
-import mizdooni.model.User;
+import jakarta.annotation.PreDestroy;
+import mizdooni.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class Database {
-    public List<User> users;
-    public List<Restaurant> restaurants;
+    private static final Logger logger = LoggerFactory.getLogger(Database.class);
+    private static final String CATALOG_FILE = "catalog.seg";
+    private static final String STORAGE_DIR = "storage";
 
-    public Database() {
-        users = new ArrayList<>();
-        restaurants = new ArrayList<>();
-        new DataLoader(this).read();
+    private Storage storage;
+    private final ReservationStore reservationStore = new ReservationStore();
+    private RestaurantSearchIndex searchIndex;
+    private RestaurantRanking ratingRanking;
+    private RestaurantRanking reviewsRanking;
+
+    private Path stateDir;
+    private WriteAheadLog log;
+    private ScheduledExecutorService snapshotScheduler;
+    private final Object snapshotLock = new Object();
+
+    /**
+     * Restores the database from the state directory: the latest snapshot if there is one, the data files
+     * otherwise, followed by the write-ahead log. Every change made afterwards is logged there, and a snapshot is
+     * taken every {@code snapshotIntervalMinutes} and on shutdown. An empty directory disables persistence.
+     * With {@code offHeapCatalog}, the restaurants loaded at startup keep their catalog attributes in a
+     * memory-mapped {@link CatalogSegment}. {@code storageEngine} selects the {@link Storage}: {@code memory}
+     * or {@code file}.
+     */
+    @Autowired
+    public Database(@Value("${mizdooni.state.dir:}") String stateDir,
+                    @Value("${mizdooni.snapshot.interval-minutes:60}") long snapshotIntervalMinutes,
+                    @Value("${mizdooni.catalog.off-heap:false}") boolean offHeapCatalog,
+                    @Value("${mizdooni.storage:memory}") String storageEngine) {
+        this(JsonReader.DATA_DIR, stateDir.isEmpty() ? null : Path.of(stateDir), offHeapCatalog,
+                createStorage(storageEngine, stateDir.isEmpty() ? null : Path.of(stateDir)));
+        if (log != null && snapshotIntervalMinutes > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "database-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::scheduledSnapshot, snapshotIntervalMinutes,
+                    snapshotIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    Database(Path dataDir) {
+        this(dataDir, null);
+    }
+
+    Database(Path dataDir, Path stateDir) {
+        this(dataDir, stateDir, false, new MemoryStorage());
+    }
+
+    Database(Path dataDir, Path stateDir, boolean offHeapCatalog, Storage storage) {
+        this.storage = storage;
+        searchIndex = new RestaurantSearchIndex();
+        ratingRanking = new RestaurantRanking(r -> r.getAverageRating().overall);
+        reviewsRanking = new RestaurantRanking(Restaurant::getReviewCount);
+        this.stateDir = stateDir;
+
+        DataLoader loader = new DataLoader(this, dataDir);
+        try {
+            long firstSegment = 0;
+            if (stateDir != null && Snapshot.exists(stateDir)) {
+                firstSegment = Snapshot.restore(stateDir, this);
+            } else {
+                loader.read();
+            }
+            if (stateDir != null) {
+                log = WriteAheadLog.open(stateDir, firstSegment, loader::replay);
+            }
+            if (offHeapCatalog) {
+                mapCatalog();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Storage createStorage(String engine, Path stateDir) {
+        try {
+            return switch (engine) {
+                case "memory" -> new MemoryStorage();
+                case "file" -> new FileStorage(stateDir != null
+                        ? stateDir.resolve(STORAGE_DIR) : Files.createTempDirectory("mizdooni-storage"));
+                default -> throw new IllegalArgumentException("unknown storage engine " + engine);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Moves the catalog attributes of all restaurants into a fresh segment file, in the state directory if there
+     * is one. Restaurants added later stay on the heap until the next start.
+     */
+    private void mapCatalog() throws IOException {
+        Path path;
+        if (stateDir != null) {
+            path = stateDir.resolve(CATALOG_FILE);
+        } else {
+            path = Files.createTempFile("mizdooni-catalog", ".seg");
+            path.toFile().deleteOnExit();
+        }
+        List<Restaurant> restaurants = storage.restaurants();
+        CatalogSegment segment = CatalogSegment.write(path, restaurants);
+        for (int row = 0; row < restaurants.size(); row++) {
+            restaurants.get(row).attachCatalog(segment, row);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the whole database and drops the log segments it covers. Requests keep being served
+     * while it is written; they only wait for the log to switch to a new segment.
+     */
+    public void snapshot() throws IOException {
+        if (log == null) {
+            return;
+        }
+        synchronized (snapshotLock) {
+            long segment;
+            List<User> userList;
+            List<Restaurant> restaurantList;
+            synchronized (this) {
+                segment = log.rotate();
+                userList = new ArrayList<>(storage.users());
+                restaurantList = new ArrayList<>(storage.restaurants());
+            }
+            Snapshot.write(stateDir, segment, userList, restaurantList);
+            log.deleteSegmentsBefore(segment);
+        }
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("snapshot failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        try {
+            if (log != null) {
+                try {
+                    snapshot();
+                } finally {
+                    log.close();
+                }
+            }
+        } finally {
+            storage.close();
+        }
+    }
+
+    /*
+     * Every change is logged before it becomes visible, under the database lock, so anything that refers to an
+     * entity is logged after it and the log replays changes in the order they were made. Each call returns once
+     * its record is durable.
+     */
+
+    public void addUser(User user) {
+        long sequence;
+        synchronized (this) {
+            sequence = append(LogRecords.USER, LogRecords.user(user));
+            user.attachReservationStore(reservationStore);
+            storage.addUser(user);
+        }
+        sync(sequence);
+    }
+
+    public void addRestaurant(Restaurant restaurant) {
+        long sequence;
+        synchronized (this) {
+            sequence = append(LogRecords.RESTAURANT, LogRecords.restaurant(restaurant));
+            restaurant.attachReservationStore(reservationStore);
+            storage.addRestaurant(restaurant);
+            searchIndex.add(restaurant);
+            ratingRanking.update(restaurant);
+            reviewsRanking.update(restaurant);
+        }
+        sync(sequence);
+    }
+
+    public void addTable(Restaurant restaurant, Table table) {
+        long sequence;
+        synchronized (this) {
+            sequence = append(LogRecords.TABLE, LogRecords.table(restaurant, restaurant.getTables().size() + 1, table));
+            restaurant.addTable(table);
+        }
+        sync(sequence);
+    }
+
+    public void addReview(Restaurant restaurant, Review review) {
+        long sequence;
+        synchronized (this) {
+            sequence = append(LogRecords.REVIEW, LogRecords.review(restaurant, review));
+            Review replaced = restaurant.getReview(review.getUser());
+            restaurant.addReview(review);
+            storage.addReview(restaurant, review, replaced);
+            ratingRanking.update(restaurant);
+            reviewsRanking.update(restaurant);
+        }
+        sync(sequence);
+    }
+
+    /**
+     * Books the reservation on its table and adds it to its user, unless the table already has an active
+     * reservation at that time. Returns whether it was booked. All bookings go through here, so the check and the
+     * booking cannot be separated by another one. A reservation without a number gets the user's next one before it
+     * is logged, since replay tells reservations apart by number.
+     */
+    public boolean addReservation(Reservation reservation) {
+        Table table = reservation.getTable();
+        long sequence;
+        synchronized (this) {
+            if (table.isReserved(reservation.getDateTime())) {
+                return false;
+            }
+            if (reservation.getReservationNumber() < 0) {
+                reservation.setReservationNumber(reservation.getUser().nextReservationNumber());
+            }
+            sequence = append(LogRecords.RESERVATION, LogRecords.reservation(reservation));
+            table.addReservation(reservation);
+            reservation.getUser().addReservation(reservation);
+            storage.putReservation(reservation);
+        }
+        sync(sequence);
+        return true;
+    }
+
+    /**
+     * Cancels the reservation, which frees its slot on the table.
+     */
+    public void cancelReservation(Reservation reservation) {
+        long sequence;
+        synchronized (this) {
+            sequence = append(LogRecords.CANCELLATION, LogRecords.cancellation(reservation));
+            reservation.cancel();
+            storage.putReservation(reservation);
+        }
+        sync(sequence);
+    }
+
+    /**
+     * Records a reservation restored from the data files, a snapshot or the log, without logging it again.
+     */
+    void restoreReservation(Reservation reservation) {
+        storage.putReservation(reservation);
+    }
+
+    private long append(byte type, byte[] payload) {
+        return log == null ? 0 : log.append(type, payload);
+    }
+
+    private void sync(long sequence) {
+        if (log != null) {
+            log.sync(sequence);
+        }
+    }
+
+    /**
+     * A copy of the list of all users, in the order they were added.
+     */
+    public synchronized List<User> getUsers() {
+        return new ArrayList<>(storage.users());
+    }
+
+    /**
+     * A copy of the list of all restaurants, in the order they were added.
+     */
+    public synchronized List<Restaurant> getRestaurants() {
+        return new ArrayList<>(storage.restaurants());
+    }
+
+    public User findUserByUsername(String username) {
+        return storage.findUserByUsername(username);
+    }
+
+    public User findUserByEmail(String email) {
+        return storage.findUserByEmail(email);
+    }
+
+    public Restaurant findRestaurant(int id) {
+        return storage.findRestaurant(id);
+    }
+
+    public Restaurant findRestaurantByName(String name) {
+        return storage.findRestaurantByName(name);
+    }
+
+    public List<Restaurant> findManagerRestaurants(int managerId) {
+        return storage.findManagerRestaurants(managerId);
+    }
+
+    /**
+     * Reservations on the tables of a restaurant, cancelled ones included, that start in [{@code from},
+     * {@code to}), ordered by time.
+     */
+    public List<Reservation> findReservations(int restaurantId, LocalDateTime from, LocalDateTime to) {
+        return storage.findReservations(restaurantId, from, to);
+    }
+
+    /**
+     * Reservations on one table of a restaurant that start in [{@code from}, {@code to}), ordered by time.
+     */
+    public List<Reservation> findReservations(int restaurantId, int tableNumber, LocalDateTime from,
+                                              LocalDateTime to) {
+        return storage.findReservations(restaurantId, tableNumber, from, to);
+    }
+
+    /**
+     * Up to {@code limit} reviews of a restaurant after the one with the given sequence number, in the order of
+     * {@link Restaurant#getReviews()}; pass -1 to start from the first review.
+     */
+    public List<Review> findReviewsAfter(int restaurantId, long sequence, int limit) {
+        return storage.findReviewsAfter(restaurantId, sequence, limit);
+    }
+
+    /**
+     * Restaurants matching every non-null criterion, in the order they were added: the name contains
+     * {@code name}, the type equals {@code type} and the city equals {@code city}.
+     */
+    public List<Restaurant> searchRestaurants(String name, String type, String city) {
+        return searchIndex.search(name, type, city);
+    }
+
+    /**
+     * Up to {@code limit} restaurants of {@link #searchRestaurants} that were added after the restaurant with
+     * insertion ordinal {@code afterOrdinal} (see {@link #restaurantOrdinal}); pass -1 to start from the first.
+     */
+    public List<Restaurant> searchRestaurantsAfter(String name, String type, String city, int afterOrdinal, int limit) {
+        return searchIndex.searchAfter(name, type, city, afterOrdinal, limit);
+    }
+
+    public int countRestaurants(String name, String type, String city) {
+        return searchIndex.count(name, type, city);
+    }
+
+    public int restaurantOrdinal(Restaurant restaurant) {
+        return searchIndex.ordinal(restaurant);
+    }
+
+    public Set<String> getRestaurantTypes() {
+        return searchIndex.types();
+    }
+
+    public Map<String, Set<String>> getRestaurantLocations() {
+        return searchIndex.locations();
+    }
+
+    /**
+     * The first {@code limit} restaurants of the whole catalog ordered by {@code sort}
+     * ({@link RestaurantSearchFilter#SORT_RATING} or {@link RestaurantSearchFilter#SORT_REVIEWS}), read from
+     * rankings that are kept up to date as reviews arrive. Returns null for any other sort key.
+     */
+    public List<Restaurant> topRestaurants(String sort, boolean ascending, int limit) {
+        RestaurantRanking ranking = ranking(sort);
+        return ranking == null ? null : ranking.top(ascending, limit);
+    }
+
+    /**
+     * Continues {@link #topRestaurants} after the restaurant ranked with {@code score} and {@code id}. Returns
+     * null for an unknown sort key.
+     */
+    public List<Restaurant> topRestaurantsAfter(String sort, boolean ascending, double score, int id, int limit) {
+        RestaurantRanking ranking = ranking(sort);
+        return ranking == null ? null : ranking.after(ascending, score, id, limit);
+    }
+
+    public int restaurantCount() {
+        return storage.restaurantCount();
+    }
+
+    private RestaurantRanking ranking(String sort) {
+        if (RestaurantSearchFilter.SORT_RATING.equals(sort)) {
+            return ratingRanking;
+        }
+        if (RestaurantSearchFilter.SORT_REVIEWS.equals(sort)) {
+            return reviewsRanking;
+        }
+        return null;
     }
 }
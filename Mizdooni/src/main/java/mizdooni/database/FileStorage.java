@@ -0,0 +1,239 @@
+package mizdooni.database;
+
+import mizdooni.model.Reservation;
+import mizdooni.model.Restaurant;
+import mizdooni.model.Review;
+import mizdooni.model.Table;
+import mizdooni.model.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Experimental engine that keeps its secondary indexes in an embedded {@link SortedRunStore} on disk: users by
+ * username and email, restaurants by name and manager, reviews by restaurant and sequence, and reservations by
+ * restaurant and time. It does not own the data: every user and restaurant stays on the heap in the id-to-object
+ * maps, reservations are read back from their records and reviews are resolved to the live objects their
+ * restaurants hold.
+ * <p>
+ * The run files are scratch space derived from what the database restores at startup. They are cleared when the
+ * store is opened and rebuilt on every start, so this engine saves no heap over {@link MemoryStorage} and
+ * persists nothing; durability comes from the log and snapshots in {@link Database}.
+ */
+public class FileStorage implements Storage {
+    private static final int MEMTABLE_LIMIT = 64 * 1024;
+
+    private static final byte USERNAME = 'u';
+    private static final byte EMAIL = 'e';
+    private static final byte RESTAURANT_NAME = 'n';
+    private static final byte MANAGER = 'm';
+    private static final byte REVIEW = 'v';
+    private static final byte RESERVATION = 'r';
+    private static final byte[] PRESENT = new byte[0];
+
+    private final SortedRunStore store;
+    private final List<User> users = new ArrayList<>();
+    private final List<Restaurant> restaurants = new ArrayList<>();
+    private final Map<Integer, User> usersById = new ConcurrentHashMap<>();
+    private final Map<Integer, Restaurant> restaurantsById = new ConcurrentHashMap<>();
+
+    public FileStorage(Path dir) throws IOException {
+        this(dir, MEMTABLE_LIMIT);
+    }
+
+    FileStorage(Path dir, int memtableLimit) throws IOException {
+        this.store = SortedRunStore.open(dir, memtableLimit);
+    }
+
+    @Override
+    public void addUser(User user) {
+        users.add(user);
+        usersById.put(user.getId(), user);
+        putIfAbsent(key(USERNAME, user.getUsername()), user.getId());
+        putIfAbsent(key(EMAIL, user.getEmail()), user.getId());
+    }
+
+    @Override
+    public void addRestaurant(Restaurant restaurant) {
+        restaurants.add(restaurant);
+        restaurantsById.put(restaurant.getId(), restaurant);
+        putIfAbsent(key(RESTAURANT_NAME, restaurant.getName()), restaurant.getId());
+        if (restaurant.getManager() != null) {
+            store.put(key(MANAGER, restaurant.getManager().getId(), restaurant.getId()), PRESENT);
+        }
+    }
+
+    private void putIfAbsent(byte[] key, int id) {
+        if (store.get(key) == null) {
+            store.put(key, ByteBuffer.allocate(Integer.BYTES).putInt(id).array());
+        }
+    }
+
+    @Override
+    public void addReview(Restaurant restaurant, Review review, Review replaced) {
+        if (replaced != null) {
+            store.delete(reviewKey(restaurant.getId(), replaced.getSequence()));
+        }
+        store.put(reviewKey(restaurant.getId(), review.getSequence()),
+                ByteBuffer.allocate(Integer.BYTES).putInt(review.getUser().getId()).array());
+    }
+
+    @Override
+    public void putReservation(Reservation reservation) {
+        LocalDateTime datetime = reservation.getDateTime();
+        byte[] key = ByteBuffer.allocate(1 + Integer.BYTES + Long.BYTES + 2 * Integer.BYTES)
+                .put(RESERVATION)
+                .putInt(reservation.getRestaurant().getId())
+                .putLong(epochSecond(datetime))
+                .putInt(reservation.getUser().getId())
+                .putInt(reservation.getReservationNumber())
+                .array();
+        byte[] value = ByteBuffer.allocate(2 * Integer.BYTES + 1)
+                .putInt(datetime.getNano())
+                .putInt(reservation.getTable().getTableNumber())
+                .put((byte) (reservation.isCancelled() ? 1 : 0))
+                .array();
+        store.put(key, value);
+    }
+
+    @Override
+    public User findUserByUsername(String username) {
+        return find(usersById, key(USERNAME, username));
+    }
+
+    @Override
+    public User findUserByEmail(String email) {
+        return find(usersById, key(EMAIL, email));
+    }
+
+    @Override
+    public Restaurant findRestaurant(int id) {
+        return restaurantsById.get(id);
+    }
+
+    @Override
+    public Restaurant findRestaurantByName(String name) {
+        return find(restaurantsById, key(RESTAURANT_NAME, name));
+    }
+
+    @Override
+    public List<Restaurant> findManagerRestaurants(int managerId) {
+        List<Restaurant> managed = new ArrayList<>();
+        store.scan(key(MANAGER, managerId), key(MANAGER, managerId + 1), (key, value) -> {
+            managed.add(restaurantsById.get(ByteBuffer.wrap(key).getInt(1 + Integer.BYTES)));
+            return true;
+        });
+        return managed;
+    }
+
+    @Override
+    public List<User> users() {
+        return Collections.unmodifiableList(users);
+    }
+
+    @Override
+    public List<Restaurant> restaurants() {
+        return Collections.unmodifiableList(restaurants);
+    }
+
+    @Override
+    public int restaurantCount() {
+        return restaurantsById.size();
+    }
+
+    @Override
+    public List<Reservation> findReservations(int restaurantId, LocalDateTime from, LocalDateTime to) {
+        Restaurant restaurant = restaurantsById.get(restaurantId);
+        if (restaurant == null) {
+            return Collections.emptyList();
+        }
+        byte[] first = ByteBuffer.allocate(1 + Integer.BYTES + Long.BYTES)
+                .put(RESERVATION).putInt(restaurantId).putLong(epochSecond(from)).array();
+        byte[] last = ByteBuffer.allocate(1 + Integer.BYTES + Long.BYTES)
+                .put(RESERVATION).putInt(restaurantId).putLong(epochSecond(to) + 1).array();
+        List<Reservation> found = new ArrayList<>();
+        store.scan(first, last, (key, value) -> {
+            ByteBuffer k = ByteBuffer.wrap(key, 1 + Integer.BYTES, Long.BYTES + 2 * Integer.BYTES);
+            ByteBuffer v = ByteBuffer.wrap(value);
+            LocalDateTime datetime = LocalDateTime.ofEpochSecond(k.getLong() ^ Long.MIN_VALUE, v.getInt(), ZoneOffset.UTC);
+            if (datetime.isBefore(from) || !datetime.isBefore(to)) {
+                return true;
+            }
+            User user = usersById.get(k.getInt());
+            Table table = restaurant.getTable(v.getInt());
+            Reservation reservation = new Reservation(user, restaurant, table, datetime);
+            reservation.setReservationNumber(k.getInt());
+            if (v.get() == 1) {
+                reservation.cancel();
+            }
+            found.add(reservation);
+            return true;
+        });
+        return found;
+    }
+
+    @Override
+    public List<Review> findReviewsAfter(int restaurantId, long sequence, int limit) {
+        Restaurant restaurant = restaurantsById.get(restaurantId);
+        if (restaurant == null) {
+            return Collections.emptyList();
+        }
+        List<Review> page = new ArrayList<>(Math.min(limit, 64));
+        store.scan(reviewKey(restaurantId, sequence + 1), key(REVIEW, restaurantId + 1), (key, value) -> {
+            if (page.size() >= limit) {
+                return false;
+            }
+            Review review = restaurant.getReview(usersById.get(ByteBuffer.wrap(value).getInt()));
+            // skip a review replaced after the scan started
+            if (review != null && review.getSequence() == ByteBuffer.wrap(key).getLong(1 + Integer.BYTES)) {
+                page.add(review);
+            }
+            return true;
+        });
+        return page;
+    }
+
+    private static byte[] key(byte kind, String text) {
+        byte[] bytes = String.valueOf(text).getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + bytes.length).put(kind).put(bytes).array();
+    }
+
+    private static byte[] key(byte kind, int... ids) {
+        ByteBuffer key = ByteBuffer.allocate(1 + ids.length * Integer.BYTES).put(kind);
+        for (int id : ids) {
+            key.putInt(id);
+        }
+        return key.array();
+    }
+
+    private static byte[] reviewKey(int restaurantId, long sequence) {
+        return ByteBuffer.allocate(1 + Integer.BYTES + Long.BYTES).put(REVIEW).putInt(restaurantId)
+                .putLong(sequence).array();
+    }
+
+    /**
+     * Seconds since the epoch with the sign bit flipped, so that keys sort in time order as unsigned bytes.
+     */
+    private static long epochSecond(LocalDateTime datetime) {
+        return datetime.toEpochSecond(ZoneOffset.UTC) ^ Long.MIN_VALUE;
+    }
+
+    private <T> T find(Map<Integer, T> byId, byte[] key) {
+        byte[] value = store.get(key);
+        return value == null ? null : byId.get(ByteBuffer.wrap(value).getInt());
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+}
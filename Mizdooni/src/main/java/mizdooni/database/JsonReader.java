@@ -1,16 +1,19 @@
 package mizdooni.database;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.Objects;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class JsonReader {
-    private static final String DATA_DIR_PATH = "src/main/java/mizdooni/database/data/";
+    static final Path DATA_DIR = Path.of("src/main/java/mizdooni/database/data/");
+
+    private static final JsonFactory FACTORY = new JsonFactory();
 
     public enum File {
         USERS("users.json"),
@@ -30,16 +33,55 @@ public class JsonReader {
         }
     }
 
-    public static JsonNode readData(File file) {
-        return readFromJson(DATA_DIR_PATH + file);
+    /**
+     * Reads one object of a data file. The parser is positioned on the object's START_OBJECT token and must be
+     * left on its matching END_OBJECT token.
+     */
+    @FunctionalInterface
+    public interface ObjectReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Streams the top-level array of a data file, converting one object at a time, so no tree of the whole file
+     * is ever built. Returns an empty list if the file is missing or malformed.
+     */
+    public static <T> List<T> readData(Path dataDir, File file, ObjectReader<T> reader) {
+        List<T> records = new ArrayList<>();
+        try (JsonParser parser = FACTORY.createParser(Files.newInputStream(dataDir.resolve(file.toString())))) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return List.of();
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                records.add(reader.read(parser));
+            }
+        } catch (IOException e) {
+            return List.of();
+        }
+        return records;
+    }
+
+    /**
+     * Converts a single JSON object held in memory, such as a log record.
+     */
+    public static <T> T readRecord(byte[] payload, ObjectReader<T> reader) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("record is not a JSON object");
+            }
+            return reader.read(parser);
+        }
     }
 
-    private static JsonNode readFromJson(String path) {
-        try {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path)));
-            return new ObjectMapper().readTree(reader);
-        } catch (Exception e) {
+    /**
+     * The text of the current value, rendered the way {@code JsonNode.asText()} renders it (so JSON null reads
+     * as "null"), or null for a nested structure.
+     */
+    public static String text(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
             return null;
         }
+        return parser.getText();
     }
 }
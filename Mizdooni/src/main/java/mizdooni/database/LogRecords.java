@@ -0,0 +1,123 @@
+package mizdooni.database;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import mizdooni.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Encodes the changes recorded in the {@link WriteAheadLog}. Payloads are JSON objects shaped like the rows of
+ * the data files, with entities referenced by name, so {@link DataLoader} replays them with the same readers it
+ * uses for the data files. Null values are left out.
+ */
+final class LogRecords {
+    static final byte USER = 1;
+    static final byte RESTAURANT = 2;
+    static final byte TABLE = 3;
+    static final byte REVIEW = 4;
+    static final byte RESERVATION = 5;
+    static final byte CANCELLATION = 6;
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private LogRecords() {
+    }
+
+    @FunctionalInterface
+    private interface Fields {
+        void write(JsonGenerator out) throws IOException;
+    }
+
+    static byte[] user(User user) {
+        return encode(out -> {
+            field(out, "username", user.getUsername());
+            field(out, "password", user.getPassword());
+            field(out, "email", user.getEmail());
+            field(out, "role", user.getRole().name());
+            address(out, user.getAddress());
+        });
+    }
+
+    static byte[] restaurant(Restaurant restaurant) {
+        return encode(out -> {
+            field(out, "name", restaurant.getName());
+            field(out, "managerUsername", restaurant.getManager() == null ? null : restaurant.getManager().getUsername());
+            field(out, "type", restaurant.getType());
+            field(out, "startTime", restaurant.getStartTime().toString());
+            field(out, "endTime", restaurant.getEndTime().toString());
+            field(out, "description", restaurant.getDescription());
+            field(out, "image", restaurant.getImageLink());
+            address(out, restaurant.getAddress());
+        });
+    }
+
+    static byte[] table(Restaurant restaurant, int tableNumber, Table table) {
+        return encode(out -> {
+            field(out, "restaurantName", restaurant.getName());
+            out.writeNumberField("tableNumber", tableNumber);
+            out.writeNumberField("seatsNumber", table.getSeatsNumber());
+        });
+    }
+
+    static byte[] review(Restaurant restaurant, Review review) {
+        return encode(out -> {
+            field(out, "restaurantName", restaurant.getName());
+            field(out, "username", review.getUser() == null ? null : review.getUser().getUsername());
+            out.writeNumberField("foodRate", review.getRating().food);
+            out.writeNumberField("serviceRate", review.getRating().service);
+            out.writeNumberField("ambianceRate", review.getRating().ambiance);
+            out.writeNumberField("overallRate", review.getRating().overall);
+            field(out, "comment", review.getComment());
+            field(out, "datetime", review.getDatetime() == null ? null : review.getDatetime().toString());
+        });
+    }
+
+    static byte[] reservation(Reservation reservation) {
+        return encode(out -> {
+            field(out, "username", reservation.getUser().getUsername());
+            field(out, "restaurantName", reservation.getRestaurant().getName());
+            out.writeNumberField("tableNumber", reservation.getTable().getTableNumber());
+            field(out, "datetime", reservation.getDateTime().toString());
+            out.writeNumberField("reservationNumber", reservation.getReservationNumber());
+        });
+    }
+
+    static byte[] cancellation(Reservation reservation) {
+        return encode(out -> {
+            field(out, "username", reservation.getUser().getUsername());
+            out.writeNumberField("reservationNumber", reservation.getReservationNumber());
+        });
+    }
+
+    private static void address(JsonGenerator out, Address address) throws IOException {
+        if (address == null) {
+            return;
+        }
+        out.writeObjectFieldStart("address");
+        field(out, "country", address.getCountry());
+        field(out, "city", address.getCity());
+        field(out, "street", address.getStreet());
+        out.writeEndObject();
+    }
+
+    private static void field(JsonGenerator out, String name, String value) throws IOException {
+        if (value != null) {
+            out.writeStringField(name, value);
+        }
+    }
+
+    private static byte[] encode(Fields fields) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (JsonGenerator out = FACTORY.createGenerator(bytes)) {
+            out.writeStartObject();
+            fields.write(out);
+            out.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
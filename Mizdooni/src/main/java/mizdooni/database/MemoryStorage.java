@@ -0,0 +1,141 @@
+package mizdooni.database;
+
+import mizdooni.model.Reservation;
+import mizdooni.model.Restaurant;
+import mizdooni.model.Review;
+import mizdooni.model.Table;
+import mizdooni.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps everything in hash maps on the heap; reviews and reservations are read from the restaurants and tables
+ * that own them.
+ */
+public class MemoryStorage implements Storage {
+    private final List<User> users = new ArrayList<>();
+    private final List<Restaurant> restaurants = new ArrayList<>();
+    private final Map<String, User> usersByUsername = new ConcurrentHashMap<>();
+    private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+    private final Map<Integer, Restaurant> restaurantsById = new ConcurrentHashMap<>();
+    private final Map<String, Restaurant> restaurantsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, List<Restaurant>> restaurantsByManager = new ConcurrentHashMap<>();
+
+    @Override
+    public void addUser(User user) {
+        users.add(user);
+        usersByUsername.putIfAbsent(user.getUsername(), user);
+        usersByEmail.putIfAbsent(user.getEmail(), user);
+    }
+
+    @Override
+    public void addRestaurant(Restaurant restaurant) {
+        restaurants.add(restaurant);
+        restaurantsById.put(restaurant.getId(), restaurant);
+        restaurantsByName.putIfAbsent(restaurant.getName(), restaurant);
+        if (restaurant.getManager() != null) {
+            restaurantsByManager.computeIfAbsent(restaurant.getManager().getId(), k -> new CopyOnWriteArrayList<>()).add(restaurant);
+        }
+    }
+
+    @Override
+    public void addReview(Restaurant restaurant, Review review, Review replaced) {
+    }
+
+    @Override
+    public void putReservation(Reservation reservation) {
+    }
+
+    @Override
+    public User findUserByUsername(String username) {
+        return usersByUsername.get(username);
+    }
+
+    @Override
+    public User findUserByEmail(String email) {
+        return usersByEmail.get(email);
+    }
+
+    @Override
+    public Restaurant findRestaurant(int id) {
+        return restaurantsById.get(id);
+    }
+
+    @Override
+    public Restaurant findRestaurantByName(String name) {
+        return restaurantsByName.get(name);
+    }
+
+    @Override
+    public List<Restaurant> findManagerRestaurants(int managerId) {
+        List<Restaurant> managed = restaurantsByManager.get(managerId);
+        return managed == null ? Collections.emptyList() : Collections.unmodifiableList(managed);
+    }
+
+    @Override
+    public List<User> users() {
+        return Collections.unmodifiableList(users);
+    }
+
+    @Override
+    public List<Restaurant> restaurants() {
+        return Collections.unmodifiableList(restaurants);
+    }
+
+    @Override
+    public int restaurantCount() {
+        return restaurantsById.size();
+    }
+
+    @Override
+    public List<Reservation> findReservations(int restaurantId, LocalDateTime from, LocalDateTime to) {
+        Restaurant restaurant = restaurantsById.get(restaurantId);
+        if (restaurant == null) {
+            return Collections.emptyList();
+        }
+        List<Reservation> found = new ArrayList<>();
+        for (Table table : restaurant.getTables()) {
+            addReservations(table, from, to, found);
+        }
+        found.sort(Comparator.comparing(Reservation::getDateTime));
+        return found;
+    }
+
+    @Override
+    public List<Reservation> findReservations(int restaurantId, int tableNumber, LocalDateTime from,
+                                              LocalDateTime to) {
+        Restaurant restaurant = restaurantsById.get(restaurantId);
+        Table table = restaurant == null ? null : restaurant.getTable(tableNumber);
+        if (table == null) {
+            return Collections.emptyList();
+        }
+        List<Reservation> found = new ArrayList<>();
+        addReservations(table, from, to, found);
+        return found;
+    }
+
+    private static void addReservations(Table table, LocalDateTime from, LocalDateTime to, List<Reservation> found) {
+        for (Reservation reservation : table.getReservations(from.toLocalDate(), to.minusNanos(1).toLocalDate())) {
+            if (!reservation.getDateTime().isBefore(from) && reservation.getDateTime().isBefore(to)) {
+                found.add(reservation);
+            }
+        }
+    }
+
+    @Override
+    public List<Review> findReviewsAfter(int restaurantId, long sequence, int limit) {
+        Restaurant restaurant = restaurantsById.get(restaurantId);
+        return restaurant == null ? Collections.emptyList() : restaurant.getReviewsAfter(sequence, limit);
+    }
+
+    @Override
+    public void close() {
+    }
+}
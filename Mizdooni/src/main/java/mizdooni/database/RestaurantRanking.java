@@ -0,0 +1,78 @@
+package mizdooni.database;
+
+import mizdooni.model.Restaurant;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Restaurants kept sorted by a score, in both directions, so the first entries of a sorted listing can be read
+ * without sorting the catalog. Ties are broken by ascending id in either direction, matching a stable sort of
+ * the catalog in insertion order.
+ */
+class RestaurantRanking {
+    private final ToDoubleFunction<Restaurant> score;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> ascending = new ConcurrentSkipListSet<>(
+            Comparator.comparingDouble(Entry::score).thenComparingInt(Entry::id));
+    private final NavigableSet<Entry> descending = new ConcurrentSkipListSet<>(
+            Comparator.comparingDouble(Entry::score).reversed().thenComparingInt(Entry::id));
+
+    RestaurantRanking(ToDoubleFunction<Restaurant> score) {
+        this.score = score;
+    }
+
+    /**
+     * Re-ranks the restaurant under its current score. Must be called whenever the score may have changed.
+     */
+    synchronized void update(Restaurant restaurant) {
+        Entry entry = new Entry(score.applyAsDouble(restaurant), restaurant.getId(), restaurant);
+        Entry previous = entries.put(restaurant.getId(), entry);
+        if (previous != null) {
+            ascending.remove(previous);
+            descending.remove(previous);
+        }
+        ascending.add(entry);
+        descending.add(entry);
+    }
+
+    List<Restaurant> top(boolean ascendingOrder, int limit) {
+        List<Restaurant> top = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Entry entry : ascendingOrder ? ascending : descending) {
+            if (top.size() >= limit) {
+                break;
+            }
+            top.add(entry.restaurant());
+        }
+        return top;
+    }
+
+    /**
+     * Up to {@code limit} restaurants that come strictly after the position of ({@code score}, {@code id}) in
+     * the given order.
+     */
+    List<Restaurant> after(boolean ascendingOrder, double score, int id, int limit) {
+        NavigableSet<Entry> order = ascendingOrder ? ascending : descending;
+        List<Restaurant> page = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Entry entry : order.tailSet(new Entry(score, id, null), false)) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(entry.restaurant());
+        }
+        return page;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private record Entry(double score, int id, Restaurant restaurant) {
+    }
+}
@@ -0,0 +1,217 @@
+package mizdooni.database;
+
+import mizdooni.model.Restaurant;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index over the restaurant catalog. Names are indexed by character trigrams, types and cities by
+ * exact value. Every posting list keeps restaurants in insertion order, so a query walks only the smallest
+ * list that applies and verifies the remaining conditions on each candidate. Each restaurant's insertion
+ * ordinal is stored alongside it, so a listing can resume after a given restaurant with a binary search.
+ * <p>
+ * Writers must be serialized by the caller; readers may run concurrently with a writer.
+ */
+class RestaurantSearchIndex {
+    private static final int GRAM = 3;
+
+    private final Postings all = new Postings();
+    private final Map<String, Postings> byNameGram = new ConcurrentHashMap<>();
+    private final Map<String, Postings> byType = new ConcurrentHashMap<>();
+    private final Map<String, Postings> byCity = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> citiesByCountry = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> ordinals = new ConcurrentHashMap<>();
+
+    void add(Restaurant restaurant) {
+        int ordinal = all.size();
+        all.add(restaurant, ordinal);
+        for (String gram : grams(restaurant.getName())) {
+            byNameGram.computeIfAbsent(gram, k -> new Postings()).add(restaurant, ordinal);
+        }
+        byType.computeIfAbsent(restaurant.getType(), k -> new Postings()).add(restaurant, ordinal);
+        String country = restaurant.getAddress().getCountry();
+        String city = restaurant.getAddress().getCity();
+        byCity.computeIfAbsent(city, k -> new Postings()).add(restaurant, ordinal);
+        citiesByCountry.computeIfAbsent(country, k -> ConcurrentHashMap.newKeySet()).add(city);
+        ordinals.put(restaurant.getId(), ordinal);
+    }
+
+    /**
+     * Restaurants whose name contains {@code name}, whose type is {@code type} and whose city is {@code city},
+     * in insertion order. Null arguments do not constrain the result.
+     */
+    List<Restaurant> search(String name, String type, String city) {
+        if (name == null && type == null && city == null) {
+            return all.snapshot();
+        }
+        return searchAfter(name, type, city, -1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Up to {@code limit} restaurants of {@link #search} that were added after the restaurant with insertion
+     * ordinal {@code afterOrdinal}; pass -1 to start from the beginning.
+     */
+    List<Restaurant> searchAfter(String name, String type, String city, int afterOrdinal, int limit) {
+        Postings smallest = smallest(name, type, city);
+        if (smallest == null) {
+            return Collections.emptyList();
+        }
+
+        List<Restaurant> result = new ArrayList<>();
+        Query query = new Query(name, type, city);
+        int size = smallest.size();
+        for (int i = smallest.indexAfter(afterOrdinal, size); i < size && result.size() < limit; i++) {
+            Restaurant r = smallest.get(i);
+            if (query.matches(r)) {
+                result.add(r);
+            }
+        }
+        return result;
+    }
+
+    int count(String name, String type, String city) {
+        Postings smallest = smallest(name, type, city);
+        if (smallest == null) {
+            return 0;
+        }
+        if (name == null && type == null && city == null) {
+            return smallest.size();
+        }
+        Query query = new Query(name, type, city);
+        int count = 0;
+        int size = smallest.size();
+        for (int i = 0; i < size; i++) {
+            if (query.matches(smallest.get(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Position of the restaurant in insertion order, or -1 if it is not indexed.
+     */
+    int ordinal(Restaurant restaurant) {
+        return ordinals.getOrDefault(restaurant.getId(), -1);
+    }
+
+    Set<String> types() {
+        return Collections.unmodifiableSet(byType.keySet());
+    }
+
+    Map<String, Set<String>> locations() {
+        Map<String, Set<String>> locations = new HashMap<>();
+        citiesByCountry.forEach((country, cities) -> locations.put(country, Set.copyOf(cities)));
+        return locations;
+    }
+
+    private Postings smallest(String name, String type, String city) {
+        Postings smallest = all;
+        if (type != null) {
+            smallest = smaller(smallest, byType.get(type));
+        }
+        if (city != null) {
+            smallest = smaller(smallest, byCity.get(city));
+        }
+        if (name != null) {
+            for (String gram : grams(name)) {
+                smallest = smaller(smallest, byNameGram.get(gram));
+            }
+        }
+        return smallest;
+    }
+
+    /**
+     * The conditions of a search, with their UTF-8 encodings computed once, so that restaurants kept in a catalog
+     * segment are checked without decoding their strings.
+     */
+    private record Query(String name, byte[] nameBytes, String type, byte[] typeBytes, String city,
+                         byte[] cityBytes) {
+        Query(String name, String type, String city) {
+            this(name, utf8(name), type, utf8(type), city, utf8(city));
+        }
+
+        boolean matches(Restaurant r) {
+            return (type == null || r.hasType(type, typeBytes)) &&
+                    (city == null || r.hasCity(city, cityBytes)) &&
+                    (name == null || r.nameContains(name, nameBytes));
+        }
+
+        private static byte[] utf8(String value) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Postings smaller(Postings current, Postings candidate) {
+        if (current == null || candidate == null) {
+            return null;
+        }
+        return candidate.size() < current.size() ? candidate : current;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Append-only list that a single writer grows while readers see a consistent prefix: the backing array is
+     * published before the volatile size that covers it. Ordinals are strictly increasing.
+     */
+    private static class Postings {
+        private volatile Restaurant[] elements = new Restaurant[4];
+        private volatile int[] elementOrdinals = new int[4];
+        private volatile int size;
+
+        void add(Restaurant restaurant, int ordinal) {
+            Restaurant[] current = elements;
+            int[] currentOrdinals = elementOrdinals;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                currentOrdinals = Arrays.copyOf(currentOrdinals, currentOrdinals.length * 2);
+            }
+            current[size] = restaurant;
+            currentOrdinals[size] = ordinal;
+            elements = current;
+            elementOrdinals = currentOrdinals;
+            size = size + 1;
+        }
+
+        /**
+         * Index of the first element among the first {@code size} whose ordinal is greater than {@code ordinal}.
+         */
+        int indexAfter(int ordinal, int size) {
+            int[] array = elementOrdinals;
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (array[mid] <= ordinal) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        int size() {
+            return size;
+        }
+
+        Restaurant get(int index) {
+            return elements[index];
+        }
+
+        List<Restaurant> snapshot() {
+            int length = size;
+            Restaurant[] array = elements;
+            return Collections.unmodifiableList(Arrays.asList(array).subList(0, length));
+        }
+    }
+}
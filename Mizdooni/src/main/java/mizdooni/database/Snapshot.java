@@ -0,0 +1,331 @@
+package mizdooni.database;
+
+import mizdooni.model.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary image of the whole database: users, restaurants with their tables, reviews and reservations, with
+ * references between them stored as ids. A snapshot also names the first write-ahead log segment that is not
+ * covered by it; restoring the snapshot and replaying the log from that segment rebuilds the database.
+ * <p>
+ * The image is written to a temporary file and renamed into place, so a crash never leaves a partial snapshot.
+ * It is restored through a memory-mapped window that slides over the file, which also works for files larger
+ * than a single mapping can cover.
+ */
+final class Snapshot {
+    static final String FILE_NAME = "snapshot.bin";
+
+    private static final long MAGIC = 0x4D5A534E41503031L; // "MZSNAP01"
+    private static final int NO_ID = -1;
+
+    private Snapshot() {
+    }
+
+    static boolean exists(Path dir) {
+        return Files.isRegularFile(dir.resolve(FILE_NAME));
+    }
+
+    /**
+     * Writes a snapshot of the given users and restaurants. Their state may change while it is written; every
+     * change that is only partly captured is in a log segment numbered {@code walSegment} or later.
+     */
+    static void write(Path dir, long walSegment, List<User> users, List<Restaurant> restaurants) throws IOException {
+        Path temp = dir.resolve(FILE_NAME + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), 256 * 1024));
+            out.writeLong(MAGIC);
+            out.writeLong(walSegment);
+
+            out.writeInt(users.size());
+            for (User user : users) {
+                out.writeInt(user.getId());
+                writeString(out, user.getUsername());
+                writeString(out, user.getPassword());
+                writeString(out, user.getEmail());
+                out.writeByte(user.getRole().ordinal());
+                writeAddress(out, user.getAddress());
+            }
+
+            // Changes racing with the snapshot can reach entities it does not contain; those are left out here
+            // and come back from the log.
+            Map<User, Boolean> written = new IdentityHashMap<>();
+            users.forEach(user -> written.put(user, true));
+            Map<Restaurant, Integer> tableCounts = new IdentityHashMap<>();
+
+            out.writeInt(restaurants.size());
+            for (Restaurant restaurant : restaurants) {
+                out.writeInt(restaurant.getId());
+                writeString(out, restaurant.getName());
+                out.writeInt(restaurant.getManager() == null ? NO_ID : restaurant.getManager().getId());
+                writeString(out, restaurant.getType());
+                out.writeLong(restaurant.getStartTime().toNanoOfDay());
+                out.writeLong(restaurant.getEndTime().toNanoOfDay());
+                writeString(out, restaurant.getDescription());
+                writeAddress(out, restaurant.getAddress());
+                writeString(out, restaurant.getImageLink());
+
+                List<Table> tables = restaurant.getTables();
+                tableCounts.put(restaurant, tables.size());
+                out.writeInt(tables.size());
+                for (Table table : tables) {
+                    out.writeInt(table.getTableNumber());
+                    out.writeInt(table.getSeatsNumber());
+                }
+
+                List<Review> reviews = restaurant.getReviews().stream()
+                        .filter(review -> review.getUser() == null || written.containsKey(review.getUser()))
+                        .toList();
+                out.writeInt(reviews.size());
+                for (Review review : reviews) {
+                    out.writeInt(review.getUser() == null ? NO_ID : review.getUser().getId());
+                    Rating rating = review.getRating();
+                    out.writeDouble(rating.food);
+                    out.writeDouble(rating.service);
+                    out.writeDouble(rating.ambiance);
+                    out.writeDouble(rating.overall);
+                    writeString(out, review.getComment());
+                    writeDateTime(out, review.getDatetime());
+                }
+            }
+
+            for (User user : users) {
+                List<Reservation> reservations = user.getReservations().stream()
+                        .filter(reservation -> reservation.getTable().getTableNumber()
+                                <= tableCounts.getOrDefault(reservation.getRestaurant(), 0))
+                        .toList();
+                out.writeInt(reservations.size());
+                for (Reservation reservation : reservations) {
+                    out.writeInt(reservation.getRestaurant().getId());
+                    out.writeInt(reservation.getTable().getTableNumber());
+                    writeDateTime(out, reservation.getDateTime());
+                    out.writeInt(reservation.getReservationNumber());
+                    out.writeBoolean(reservation.isCancelled());
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, dir.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the snapshot in {@code dir} into an empty database and returns the first log segment to replay.
+     */
+    static long restore(Path dir, Database db) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve(FILE_NAME), StandardOpenOption.READ)) {
+            MappedInput in = new MappedInput(channel);
+            if (in.readLong() != MAGIC) {
+                throw new IOException("not a snapshot file");
+            }
+            long walSegment = in.readLong();
+
+            int userCount = in.readInt();
+            List<User> users = new ArrayList<>(userCount);
+            Map<Integer, User> usersById = new HashMap<>();
+            for (int i = 0; i < userCount; i++) {
+                int id = in.readInt();
+                String username = in.readString();
+                String password = in.readString();
+                String email = in.readString();
+                User.Role role = User.Role.values()[in.readByte()];
+                User user = new User(username, password, email, in.readAddress(), role);
+                db.addUser(user);
+                users.add(user);
+                usersById.put(id, user);
+            }
+
+            int restaurantCount = in.readInt();
+            Map<Integer, Restaurant> restaurantsById = new HashMap<>();
+            for (int i = 0; i < restaurantCount; i++) {
+                int id = in.readInt();
+                String name = in.readString();
+                User manager = usersById.get(in.readInt());
+                String type = in.readString();
+                LocalTime startTime = LocalTime.ofNanoOfDay(in.readLong());
+                LocalTime endTime = LocalTime.ofNanoOfDay(in.readLong());
+                String description = in.readString();
+                Address address = in.readAddress();
+                String imageLink = in.readString();
+                Restaurant restaurant = new Restaurant(name, manager, type, startTime, endTime, description, address, imageLink);
+                db.addRestaurant(restaurant);
+                restaurantsById.put(id, restaurant);
+
+                int tableCount = in.readInt();
+                List<Table> tables = new ArrayList<>(tableCount);
+                for (int t = 0; t < tableCount; t++) {
+                    in.readInt();
+                    tables.add(new Table(0, restaurant.getId(), in.readInt()));
+                }
+                restaurant.addTables(tables);
+
+                int reviewCount = in.readInt();
+                for (int r = 0; r < reviewCount; r++) {
+                    User user = usersById.get(in.readInt());
+                    Rating rating = new Rating();
+                    rating.food = in.readDouble();
+                    rating.service = in.readDouble();
+                    rating.ambiance = in.readDouble();
+                    rating.overall = in.readDouble();
+                    String comment = in.readString();
+                    db.addReview(restaurant, new Review(user, rating, comment, in.readDateTime()));
+                }
+            }
+
+            for (User user : users) {
+                int reservationCount = in.readInt();
+                for (int r = 0; r < reservationCount; r++) {
+                    Restaurant restaurant = restaurantsById.get(in.readInt());
+                    Table table = restaurant.getTable(in.readInt());
+                    LocalDateTime datetime = in.readDateTime();
+                    int number = in.readInt();
+                    Reservation reservation = new Reservation(user, restaurant, table, datetime);
+                    reservation.setReservationNumber(number);
+                    if (in.readBoolean()) {
+                        // cancelled before it is placed, so it never takes the table slot
+                        reservation.cancel();
+                    }
+                    table.addReservation(reservation);
+                    user.addReservation(reservation);
+                    db.restoreReservation(reservation);
+                }
+            }
+            return walSegment;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeAddress(DataOutputStream out, Address address) throws IOException {
+        out.writeBoolean(address != null);
+        if (address != null) {
+            writeString(out, address.getCountry());
+            writeString(out, address.getCity());
+            writeString(out, address.getStreet());
+        }
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime datetime) throws IOException {
+        out.writeBoolean(datetime != null);
+        if (datetime != null) {
+            out.writeLong(datetime.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(datetime.getNano());
+        }
+    }
+
+    /**
+     * Sequential reader over a read-only mapping of a window of the file, remapped further along whenever the
+     * next value does not fit in what is left of the window.
+     */
+    private static class MappedInput {
+        private static final long WINDOW = 256L * 1024 * 1024;
+
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedInput(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(0);
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+        }
+
+        private void require(int bytes) throws IOException {
+            if (window.remaining() >= bytes) {
+                return;
+            }
+            long position = windowStart + window.position();
+            if (size - position < bytes) {
+                throw new IOException("snapshot is truncated");
+            }
+            if (bytes > WINDOW) {
+                throw new IOException("snapshot value is too large");
+            }
+            map(position);
+        }
+
+        byte readByte() throws IOException {
+            require(1);
+            return window.get();
+        }
+
+        boolean readBoolean() throws IOException {
+            return readByte() != 0;
+        }
+
+        int readInt() throws IOException {
+            require(Integer.BYTES);
+            return window.getInt();
+        }
+
+        long readLong() throws IOException {
+            require(Long.BYTES);
+            return window.getLong();
+        }
+
+        double readDouble() throws IOException {
+            require(Double.BYTES);
+            return window.getDouble();
+        }
+
+        String readString() throws IOException {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            require(length);
+            byte[] bytes = new byte[length];
+            window.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Address readAddress() throws IOException {
+            if (!readBoolean()) {
+                return null;
+            }
+            return new Address(readString(), readString(), readString());
+        }
+
+        LocalDateTime readDateTime() throws IOException {
+            if (!readBoolean()) {
+                return null;
+            }
+            long seconds = readLong();
+            return LocalDateTime.ofEpochSecond(seconds, readInt(), ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package mizdooni.database;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Embedded ordered key-value store in the style of a log-structured merge tree. Writes go to an in-memory sorted
+ * table; when that fills up it is written out as an immutable sorted run file, and once there are too many runs
+ * they are merged into one. Lookups and range scans merge the table with the runs, newest first. Keys are
+ * compared as unsigned bytes.
+ * <p>
+ * Runs are read with positional reads through a sparse in-memory index of every {@value #INDEX_INTERVAL}th key.
+ * The store holds no data of its own across restarts: opening it clears the directory, and it is used only as a
+ * rebuildable secondary index.
+ */
+class SortedRunStore implements Closeable {
+    private static final int INDEX_INTERVAL = 32;
+    private static final int MAX_RUNS = 4;
+    private static final byte[] TOMBSTONE = new byte[0];
+    private static final Entry END = new Entry(null, null);
+
+    private final Path dir;
+    private final int memtableLimit;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile NavigableMap<byte[], byte[]> memtable = newMemtable();
+    private List<Run> runs = new ArrayList<>(); // newest first
+    private int nextRun;
+
+    private SortedRunStore(Path dir, int memtableLimit) {
+        this.dir = dir;
+        this.memtableLimit = memtableLimit;
+    }
+
+    /**
+     * Opens an empty store in {@code dir}, removing any run files left there, that flushes its in-memory table
+     * once it holds {@code memtableLimit} entries.
+     */
+    static SortedRunStore open(Path dir, int memtableLimit) throws IOException {
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(".run")) {
+                    Files.delete(file);
+                }
+            }
+        }
+        return new SortedRunStore(dir, memtableLimit);
+    }
+
+    private static NavigableMap<byte[], byte[]> newMemtable() {
+        return new ConcurrentSkipListMap<>(Arrays::compareUnsigned);
+    }
+
+    void put(byte[] key, byte[] value) {
+        write(key, value);
+    }
+
+    void delete(byte[] key) {
+        write(key, TOMBSTONE);
+    }
+
+    private void write(byte[] key, byte[] value) {
+        int size;
+        lock.readLock().lock();
+        try {
+            memtable.put(key, value);
+            size = memtable.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (size >= memtableLimit) {
+            flush();
+        }
+    }
+
+    /**
+     * The value stored under {@code key}, or null.
+     */
+    byte[] get(byte[] key) {
+        lock.readLock().lock();
+        try {
+            byte[] value = memtable.get(key);
+            for (int i = 0; value == null && i < runs.size(); i++) {
+                value = runs.get(i).get(key);
+            }
+            return value == TOMBSTONE ? null : value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Calls {@code visitor} for every key in [{@code from}, {@code to}) in key order until it returns false.
+     */
+    void scan(byte[] from, byte[] to, Visitor visitor) {
+        lock.readLock().lock();
+        try {
+            List<Iterator<Entry>> sources = new ArrayList<>(runs.size() + 1);
+            sources.add(memtable.subMap(from, true, to, false).entrySet().stream()
+                    .map(e -> new Entry(e.getKey(), e.getValue())).iterator());
+            for (Run run : runs) {
+                sources.add(run.iterator(from, to));
+            }
+            merge(sources, entry -> entry.value == TOMBSTONE || visitor.visit(entry.key, entry.value));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    interface Visitor {
+        boolean visit(byte[] key, byte[] value);
+    }
+
+    /**
+     * Merges sorted sources, the first one winning among equal keys, until {@code sink} returns false. Tombstones
+     * are passed on.
+     */
+    private static void merge(List<Iterator<Entry>> sources, Predicate<Entry> sink) {
+        record Head(Entry entry, int source) {
+        }
+        PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> {
+            int c = Arrays.compareUnsigned(a.entry.key, b.entry.key);
+            return c != 0 ? c : Integer.compare(a.source, b.source);
+        });
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).hasNext()) {
+                heads.add(new Head(sources.get(i).next(), i));
+            }
+        }
+        byte[] previous = null;
+        while (!heads.isEmpty()) {
+            Head head = heads.poll();
+            Iterator<Entry> source = sources.get(head.source);
+            if (source.hasNext()) {
+                heads.add(new Head(source.next(), head.source));
+            }
+            if (previous != null && Arrays.equals(previous, head.entry.key)) {
+                continue;
+            }
+            previous = head.entry.key;
+            if (!sink.test(head.entry)) {
+                return;
+            }
+        }
+    }
+
+    private void flush() {
+        lock.writeLock().lock();
+        try {
+            if (memtable.size() < memtableLimit) {
+                return;
+            }
+            RunWriter writer = new RunWriter(dir.resolve(runName()));
+            for (Map.Entry<byte[], byte[]> entry : memtable.entrySet()) {
+                writer.add(new Entry(entry.getKey(), entry.getValue()));
+            }
+            List<Run> flushed = new ArrayList<>(runs.size() + 1);
+            flushed.add(writer.finish());
+            flushed.addAll(runs);
+            runs = flushed;
+            memtable = newMemtable();
+            if (runs.size() > MAX_RUNS) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Merges all runs into one, dropping overwritten values and tombstones.
+     */
+    private void compact() throws IOException {
+        List<Iterator<Entry>> sources = new ArrayList<>(runs.size());
+        for (Run run : runs) {
+            sources.add(run.iterator(new byte[0], null));
+        }
+        RunWriter writer = new RunWriter(dir.resolve(runName()));
+        merge(sources, entry -> {
+            if (entry.value != TOMBSTONE) {
+                writer.add(entry);
+            }
+            return true;
+        });
+        Run merged = writer.finish();
+        for (Run run : runs) {
+            run.delete();
+        }
+        runs = new ArrayList<>(Collections.singletonList(merged));
+    }
+
+    private String runName() {
+        return String.format("%06d.run", nextRun++);
+    }
+
+    /**
+     * Deletes the run files.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Run run : runs) {
+                run.delete();
+            }
+            runs = new ArrayList<>();
+            memtable = newMemtable();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Entry(byte[] key, byte[] value) {
+    }
+
+    /**
+     * Writes entries, given in key order, to a new run file.
+     */
+    private static class RunWriter {
+        private final Path path;
+        private final DataOutputStream out;
+        private final List<byte[]> indexKeys = new ArrayList<>();
+        private final List<Long> indexOffsets = new ArrayList<>();
+        private long offset;
+        private int count;
+
+        RunWriter(Path path) throws IOException {
+            this.path = path;
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), 64 * 1024));
+        }
+
+        void add(Entry entry) {
+            try {
+                if (count++ % INDEX_INTERVAL == 0) {
+                    indexKeys.add(entry.key);
+                    indexOffsets.add(offset);
+                }
+                out.writeInt(entry.key.length);
+                out.write(entry.key);
+                if (entry.value == TOMBSTONE) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(entry.value.length);
+                    out.write(entry.value);
+                }
+                offset += 2 * Integer.BYTES + entry.key.length + entry.value.length;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        Run finish() throws IOException {
+            out.close();
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            return new Run(path, channel, indexKeys, indexOffsets.stream().mapToLong(Long::longValue).toArray(), offset);
+        }
+    }
+
+    /**
+     * Immutable sorted run file: entries of [int key length][key][int value length, -1 for a tombstone][value].
+     */
+    private static class Run {
+        private final Path path;
+        private final FileChannel channel;
+        private final List<byte[]> indexKeys;
+        private final long[] indexOffsets;
+        private final long size;
+
+        private Run(Path path, FileChannel channel, List<byte[]> indexKeys, long[] indexOffsets, long size) {
+            this.path = path;
+            this.channel = channel;
+            this.indexKeys = indexKeys;
+            this.indexOffsets = indexOffsets;
+            this.size = size;
+        }
+
+        byte[] get(byte[] key) throws IOException {
+            Iterator<Entry> entries = iterator(key, null);
+            if (entries.hasNext()) {
+                Entry entry = entries.next();
+                if (Arrays.equals(entry.key, key)) {
+                    return entry.value;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Entries with keys in [{@code from}, {@code to}); a null {@code to} means no upper bound.
+         */
+        Iterator<Entry> iterator(byte[] from, byte[] to) {
+            int block = Collections.binarySearch(indexKeys, from, Arrays::compareUnsigned);
+            block = block >= 0 ? block : Math.max(0, -block - 2);
+            int first = block;
+            return new Iterator<>() {
+                private int nextBlock = first;
+                private ByteBuffer buffer = ByteBuffer.allocate(0);
+                private Entry next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null) {
+                        next = advance();
+                    }
+                    return next != END;
+                }
+
+                @Override
+                public Entry next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Entry entry = next;
+                    next = null;
+                    return entry;
+                }
+
+                private Entry advance() {
+                    while (true) {
+                        if (!buffer.hasRemaining()) {
+                            if (nextBlock >= indexOffsets.length) {
+                                return END;
+                            }
+                            buffer = readBlock(nextBlock++);
+                        }
+                        byte[] key = new byte[buffer.getInt()];
+                        buffer.get(key);
+                        int length = buffer.getInt();
+                        byte[] value = TOMBSTONE;
+                        if (length >= 0) {
+                            value = new byte[length];
+                            buffer.get(value);
+                        }
+                        if (Arrays.compareUnsigned(key, from) < 0) {
+                            continue;
+                        }
+                        if (to != null && Arrays.compareUnsigned(key, to) >= 0) {
+                            nextBlock = indexOffsets.length;
+                            buffer = ByteBuffer.allocate(0);
+                            return END;
+                        }
+                        return new Entry(key, value);
+                    }
+                }
+            };
+        }
+
+        private ByteBuffer readBlock(int block) {
+            long start = indexOffsets[block];
+            long end = block + 1 < indexOffsets.length ? indexOffsets[block + 1] : size;
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) {
+                        throw new IOException("truncated run " + path);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.flip();
+        }
+
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
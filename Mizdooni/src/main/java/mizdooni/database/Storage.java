@@ -0,0 +1,85 @@
+package mizdooni.database;
+
+import mizdooni.model.Reservation;
+import mizdooni.model.Restaurant;
+import mizdooni.model.Review;
+import mizdooni.model.User;
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage engine behind {@link Database}: holds users and restaurants and answers the lookups and scans the
+ * services need. Logging, snapshots and the restaurant search and ranking indexes stay in {@link Database}, which
+ * also serializes all writes.
+ * <p>
+ * Users, restaurants and tables are live objects that carry mutable state, so every engine hands out the same
+ * instances it was given; engines differ in where they keep the indexes over them and over reviews and
+ * reservations.
+ */
+public interface Storage extends Closeable {
+    void addUser(User user);
+
+    void addRestaurant(Restaurant restaurant);
+
+    /**
+     * Records {@code review}, which has just been added to {@code restaurant} and replaced {@code replaced}, the
+     * previous review of the same user, if there was one.
+     */
+    void addReview(Restaurant restaurant, Review review, Review replaced);
+
+    /**
+     * Records the current state of {@code reservation}: called when it is made and again when it is cancelled.
+     */
+    void putReservation(Reservation reservation);
+
+    User findUserByUsername(String username);
+
+    User findUserByEmail(String email);
+
+    Restaurant findRestaurant(int id);
+
+    Restaurant findRestaurantByName(String name);
+
+    List<Restaurant> findManagerRestaurants(int managerId);
+
+    /**
+     * All users in the order they were added; the caller must not modify it.
+     */
+    List<User> users();
+
+    /**
+     * All restaurants in the order they were added; the caller must not modify it.
+     */
+    List<Restaurant> restaurants();
+
+    int restaurantCount();
+
+    /**
+     * Reservations on the tables of a restaurant, cancelled ones included, that start in [{@code from},
+     * {@code to}), ordered by time.
+     */
+    List<Reservation> findReservations(int restaurantId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Reservations on one table of a restaurant, like {@link #findReservations(int, LocalDateTime, LocalDateTime)}.
+     */
+    default List<Reservation> findReservations(int restaurantId, int tableNumber, LocalDateTime from,
+                                               LocalDateTime to) {
+        List<Reservation> found = new ArrayList<>();
+        for (Reservation reservation : findReservations(restaurantId, from, to)) {
+            if (reservation.getTable().getTableNumber() == tableNumber) {
+                found.add(reservation);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Up to {@code limit} current reviews of a restaurant after the one with the given sequence number, in the
+     * order of {@link Restaurant#getReviewsAfter}; pass -1 to start from the first review.
+     */
+    List<Review> findReviewsAfter(int restaurantId, long sequence, int limit);
+}
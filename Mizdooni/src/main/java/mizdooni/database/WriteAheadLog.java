@@ -0,0 +1,280 @@
+package mizdooni.database;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of typed records, kept as numbered segment files in a directory. Each record is framed as its
+ * payload length, a CRC32 over type and payload, the type byte and the payload, so a record torn by a crash is
+ * detected and cut off on the next open. {@link #rotate} starts a new segment so that older ones can be dropped
+ * once a snapshot covers them.
+ * <p>
+ * Appending and syncing are separate steps: {@link #append} only queues the record in memory and returns its
+ * sequence number, so callers can append while holding the lock that orders their writes, then wait in
+ * {@link #sync} without it. Syncing uses group commit: the first waiter writes and fsyncs everything queued so
+ * far while later appenders pile up behind it, and all of them are released by that single fsync.
+ */
+class WriteAheadLog implements Closeable {
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + 1;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    @FunctionalInterface
+    interface RecordHandler {
+        void accept(byte type, byte[] payload) throws IOException;
+    }
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path dir;
+    private FileChannel channel;
+    private long segment;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appended;
+    private long durable;
+    private boolean syncing;
+    private IOException failure;
+
+    private WriteAheadLog(Path dir, long segment, FileChannel channel) {
+        this.dir = dir;
+        this.segment = segment;
+        this.channel = channel;
+    }
+
+    /**
+     * Feeds every intact record of the segments numbered {@code fromSegment} and up to {@code handler} in order,
+     * drops a torn record at the end of the last segment, and opens that segment for appending after its last
+     * intact record. The directory and first segment are created if missing.
+     */
+    static WriteAheadLog open(Path dir, long fromSegment, RecordHandler handler) throws IOException {
+        Files.createDirectories(dir);
+        List<Long> segments = segments(dir).stream().filter(n -> n >= fromSegment).toList();
+        long last = segments.isEmpty() ? fromSegment : segments.get(segments.size() - 1);
+        for (long n : segments) {
+            if (n != last) {
+                try (FileChannel channel = FileChannel.open(segmentPath(dir, n), StandardOpenOption.READ)) {
+                    replay(channel, handler);
+                }
+            }
+        }
+
+        FileChannel channel = FileChannel.open(segmentPath(dir, last), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end = replay(channel, handler);
+            if (end < channel.size()) {
+                channel.truncate(end);
+                channel.force(true);
+            }
+            channel.position(end);
+            return new WriteAheadLog(dir, last, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static List<Long> segments(Path dir) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static Path segmentPath(Path dir, long segment) {
+        return dir.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static long replay(FileChannel channel, RecordHandler handler) throws IOException {
+        InputStream stream = Channels.newInputStream(channel.position(0));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+        long end = 0;
+        CRC32 crc = new CRC32();
+        while (true) {
+            byte[] payload;
+            byte type;
+            try {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || length > MAX_RECORD_SIZE) {
+                    return end;
+                }
+                type = in.readByte();
+                payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(type);
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    return end;
+                }
+            } catch (EOFException e) {
+                return end;
+            }
+            handler.accept(type, payload);
+            end += HEADER_SIZE + payload.length;
+        }
+    }
+
+    /**
+     * Queues a record and returns its sequence number. Records become durable in the order they were appended.
+     *
+     * @throws UncheckedIOException if an earlier write to the log failed
+     */
+    long append(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(payload.length).putInt((int) crc.getValue()).put(type);
+
+        lock.lock();
+        try {
+            checkFailure();
+            pending.write(header.array(), 0, HEADER_SIZE);
+            pending.write(payload, 0, payload.length);
+            return ++appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with sequence number {@code sequence}, and every record before it, is on disk.
+     *
+     * @throws UncheckedIOException if writing or syncing the log failed
+     */
+    void sync(long sequence) {
+        lock.lock();
+        try {
+            while (durable < sequence) {
+                checkFailure();
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                long target = appended;
+                ByteArrayOutputStream batch = pending;
+                pending = new ByteArrayOutputStream();
+                FileChannel file = channel;
+                lock.unlock();
+                IOException error = null;
+                try {
+                    ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                    while (buffer.hasRemaining()) {
+                        file.write(buffer);
+                    }
+                    file.force(false);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+                syncing = false;
+                if (error == null) {
+                    durable = target;
+                } else {
+                    failure = error;
+                }
+                synced.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes everything appended so far durable in the current segment and switches to a new one. Returns the
+     * number of the new segment; every record appended before this call is in an earlier segment.
+     */
+    long rotate() throws IOException {
+        lock.lock();
+        try {
+            while (syncing) {
+                synced.awaitUninterruptibly();
+            }
+            checkFailure();
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                pending = new ByteArrayOutputStream();
+                durable = appended;
+                synced.signalAll();
+
+                FileChannel next = FileChannel.open(segmentPath(dir, segment + 1), StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.close();
+                channel = next;
+                return ++segment;
+            } catch (IOException e) {
+                failure = e;
+                synced.signalAll();
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments numbered below {@code segment}, once a snapshot makes them unnecessary.
+     */
+    void deleteSegmentsBefore(long segment) throws IOException {
+        for (long n : segments(dir)) {
+            if (n < segment) {
+                Files.deleteIfExists(segmentPath(dir, n));
+            }
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("write-ahead log is unavailable", failure);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        long last = appended;
+        lock.unlock();
+        try {
+            sync(last);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package mizdooni.exceptions;
+
+public class InvalidDateRange extends Exception {
+    public InvalidDateRange() {
+        super("Start date is after end date.");
+    }
+
+    public InvalidDateRange(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,11 @@
 package mizdooni.filters;
 
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import mizdooni.response.ResponseException;
 import mizdooni.service.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
@@ -11,6 +13,8 @@ import org.springframework.web.servlet.HandlerInterceptor;
 import java.lang.reflect.Method;
 
 public class AuthInterceptor implements HandlerInterceptor {
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private UserService userService;
 
     public AuthInterceptor(UserService userService) {
@@ -22,6 +26,8 @@ public class AuthInterceptor implements HandlerInterceptor {
         if (!(handler instanceof HandlerMethod)) {
             return true;
         }
+        userService.authenticate(sessionToken(request));
+
         Method method = ((HandlerMethod) handler).getMethod();
         if (!method.isAnnotationPresent(LoginRequired.class) &&
                 !method.getDeclaringClass().isAnnotationPresent(LoginRequired.class)) {
@@ -32,4 +38,23 @@ public class AuthInterceptor implements HandlerInterceptor {
         }
         return true;
     }
+
+    private static String sessionToken(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            return authorization.substring(BEARER_PREFIX.length()).trim();
+        }
+        String token = request.getHeader(UserService.SESSION_HEADER);
+        if (token != null) {
+            return token;
+        }
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (cookie.getName().equals(UserService.SESSION_COOKIE)) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
 }
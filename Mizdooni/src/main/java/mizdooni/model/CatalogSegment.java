@@ -0,0 +1,209 @@
+package mizdooni.model;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Read-only, memory-mapped file holding the immutable attributes of a set of restaurants in columns, one row per
+ * restaurant. Restaurants attached to a segment read these attributes from it instead of keeping their own
+ * strings on the heap.
+ * <p>
+ * Layout: a header (magic, row count), then for each string column an (offset, length) pair per row with a
+ * length of -1 for null, then the opening and closing times as nanos of day, then the UTF-8 bytes of all
+ * strings. A restaurant without an address has a country length of -2. A segment is limited to 2 GB.
+ * <p>
+ * The segment is written afresh from the restaurants at every start; it is not read back across restarts.
+ */
+public final class CatalogSegment {
+    private static final long MAGIC = 0x4D5A434154303032L; // "MZCAT002"
+    private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+    private static final int NAME = 0;
+    private static final int TYPE = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int COUNTRY = 3;
+    private static final int CITY = 4;
+    private static final int STREET = 5;
+    private static final int IMAGE_LINK = 6;
+    private static final int STRING_COLUMNS = 7;
+    private static final int NO_ADDRESS = -2;
+
+    private final MappedByteBuffer buffer;
+    private final int rows;
+    private final int timesStart;
+    private final int blobStart;
+
+    private CatalogSegment(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.rows = buffer.getInt(Long.BYTES);
+        this.timesStart = HEADER_SIZE + STRING_COLUMNS * rows * 2 * Integer.BYTES;
+        this.blobStart = timesStart + rows * 2 * Long.BYTES;
+    }
+
+    /**
+     * Writes the catalog attributes of {@code restaurants} to {@code path}, row {@code i} holding restaurant
+     * {@code i}, and maps the result.
+     */
+    public static CatalogSegment write(Path path, List<Restaurant> restaurants) throws IOException {
+        int rows = restaurants.size();
+        long blobStart = HEADER_SIZE + (long) STRING_COLUMNS * rows * 2 * Integer.BYTES + (long) rows * 2 * Long.BYTES;
+        if (blobStart > Integer.MAX_VALUE) {
+            throw new IOException("catalog segment exceeds 2 GB");
+        }
+        ByteBuffer index = ByteBuffer.allocate((int) blobStart);
+        index.putLong(MAGIC).putInt(rows);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(blobStart);
+            OutputStream blob = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            long blobSize = 0;
+            for (int column = 0; column < STRING_COLUMNS; column++) {
+                for (Restaurant restaurant : restaurants) {
+                    String value = column(restaurant, column);
+                    if (column == COUNTRY && restaurant.getAddress() == null) {
+                        index.putInt(0).putInt(NO_ADDRESS);
+                        continue;
+                    }
+                    if (value == null) {
+                        index.putInt(0).putInt(-1);
+                        continue;
+                    }
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    if (blobStart + blobSize + bytes.length > Integer.MAX_VALUE) {
+                        throw new IOException("catalog segment exceeds 2 GB");
+                    }
+                    index.putInt((int) blobSize).putInt(bytes.length);
+                    blob.write(bytes);
+                    blobSize += bytes.length;
+                }
+            }
+            for (Restaurant restaurant : restaurants) {
+                index.putLong(restaurant.getStartTime().toNanoOfDay()).putLong(restaurant.getEndTime().toNanoOfDay());
+            }
+            blob.flush();
+
+            index.flip();
+            channel.position(0);
+            while (index.hasRemaining()) {
+                channel.write(index);
+            }
+            return new CatalogSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, blobStart + blobSize));
+        }
+    }
+
+    private static String column(Restaurant restaurant, int column) {
+        Address address = restaurant.getAddress();
+        return switch (column) {
+            case NAME -> restaurant.getName();
+            case TYPE -> restaurant.getType();
+            case DESCRIPTION -> restaurant.getDescription();
+            case COUNTRY -> address == null ? null : address.getCountry();
+            case CITY -> address == null ? null : address.getCity();
+            case STREET -> address == null ? null : address.getStreet();
+            case IMAGE_LINK -> restaurant.getImageLink();
+            default -> throw new IllegalArgumentException("unknown column " + column);
+        };
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    String name(int row) {
+        return string(NAME, row);
+    }
+
+    String type(int row) {
+        return string(TYPE, row);
+    }
+
+    String description(int row) {
+        return string(DESCRIPTION, row);
+    }
+
+    String imageLink(int row) {
+        return string(IMAGE_LINK, row);
+    }
+
+    Address address(int row) {
+        if (buffer.getInt(entry(COUNTRY, row) + Integer.BYTES) == NO_ADDRESS) {
+            return null;
+        }
+        return new Address(string(COUNTRY, row), string(CITY, row), string(STREET, row));
+    }
+
+    boolean typeEquals(int row, byte[] type) {
+        return bytesEqual(TYPE, row, type);
+    }
+
+    boolean cityEquals(int row, byte[] city) {
+        return bytesEqual(CITY, row, city);
+    }
+
+    boolean nameContains(int row, byte[] part) {
+        int entry = entry(NAME, row);
+        int length = buffer.getInt(entry + Integer.BYTES);
+        int start = blobStart + buffer.getInt(entry);
+        for (int from = 0; from + part.length <= length; from++) {
+            int i = 0;
+            while (i < part.length && buffer.get(start + from + i) == part[i]) {
+                i++;
+            }
+            if (i == part.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    LocalTime startTime(int row) {
+        return LocalTime.ofNanoOfDay(buffer.getLong(timesStart + row * 2 * Long.BYTES));
+    }
+
+    LocalTime endTime(int row) {
+        return LocalTime.ofNanoOfDay(buffer.getLong(timesStart + row * 2 * Long.BYTES + Long.BYTES));
+    }
+
+    /**
+     * Compares the UTF-8 bytes of a value with the mapped ones, without decoding them.
+     */
+    private boolean bytesEqual(int column, int row, byte[] value) {
+        int entry = entry(column, row);
+        if (buffer.getInt(entry + Integer.BYTES) != value.length) {
+            return false;
+        }
+        int start = blobStart + buffer.getInt(entry);
+        for (int i = 0; i < value.length; i++) {
+            if (buffer.get(start + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int entry(int column, int row) {
+        return HEADER_SIZE + (column * rows + row) * 2 * Integer.BYTES;
+    }
+
+    private String string(int column, int row) {
+        int entry = entry(column, row);
+        int length = buffer.getInt(entry + Integer.BYTES);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(blobStart + buffer.getInt(entry), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,132 @@
+package mizdooni.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Per-day occupancy of a restaurant's tables, kept up to date by the tables as on-the-hour slots are booked and
+ * released. Tables are grouped into classes by seat count; for every day with a booking it holds how many tables
+ * of each class are reserved at each hour, and a bitmask per class of the hours at which all of them are. The free
+ * hours of a day for a party are then one map lookup and an AND over the classes large enough for it.
+ */
+public class Occupancy {
+    private static final int HOURS = 24;
+
+    private int[] capacities = new int[0]; // distinct seat counts, ascending
+    private int[] tableCounts = new int[0];
+    private final NavigableMap<LocalDate, Day> days = new TreeMap<>();
+
+    private static class Day {
+        int[] reserved; // [class * HOURS + hour]
+        int[] fullHours; // [class]
+
+        Day(int classes) {
+            reserved = new int[classes * HOURS];
+            fullHours = new int[classes];
+        }
+    }
+
+    /**
+     * Counts a new table with {@code seats} seats.
+     */
+    synchronized void addTable(int seats) {
+        int k = Arrays.binarySearch(capacities, seats);
+        if (k < 0) {
+            k = -k - 1;
+            capacities = insert(capacities, k, seats);
+            tableCounts = insert(tableCounts, k, 0);
+            for (Day day : days.values()) {
+                int[] reserved = new int[capacities.length * HOURS];
+                System.arraycopy(day.reserved, 0, reserved, 0, k * HOURS);
+                System.arraycopy(day.reserved, k * HOURS, reserved, (k + 1) * HOURS, day.reserved.length - k * HOURS);
+                day.reserved = reserved;
+                day.fullHours = insert(day.fullHours, k, 0);
+            }
+        }
+        tableCounts[k]++;
+        for (Day day : days.values()) {
+            day.fullHours[k] = 0;
+        }
+    }
+
+    private static int[] insert(int[] array, int index, int value) {
+        int[] grown = new int[array.length + 1];
+        System.arraycopy(array, 0, grown, 0, index);
+        grown[index] = value;
+        System.arraycopy(array, index, grown, index + 1, array.length - index);
+        return grown;
+    }
+
+    /**
+     * Records that a table with {@code seats} seats became reserved at {@code hour} on {@code date}.
+     */
+    synchronized void reserve(LocalDate date, int hour, int seats) {
+        int k = Arrays.binarySearch(capacities, seats);
+        if (k < 0) {
+            return;
+        }
+        Day day = days.computeIfAbsent(date, d -> new Day(capacities.length));
+        if (++day.reserved[k * HOURS + hour] >= tableCounts[k]) {
+            day.fullHours[k] |= 1 << hour;
+        }
+    }
+
+    /**
+     * Records that a table with {@code seats} seats is no longer reserved at {@code hour} on {@code date}.
+     */
+    synchronized void release(LocalDate date, int hour, int seats) {
+        int k = Arrays.binarySearch(capacities, seats);
+        Day day = days.get(date);
+        if (k < 0 || day == null || day.reserved[k * HOURS + hour] == 0) {
+            return;
+        }
+        day.reserved[k * HOURS + hour]--;
+        day.fullHours[k] &= ~(1 << hour);
+    }
+
+    /**
+     * Forgets the days before {@code date}.
+     */
+    synchronized void removeBefore(LocalDate date) {
+        days.headMap(date).clear();
+    }
+
+    /**
+     * Hours of {@code date} at which at least one table with room for {@code people} is free, as a bitmask whose
+     * bit {@code i} stands for {@code i:00}.
+     */
+    public synchronized int freeHours(LocalDate date, int people) {
+        int first = firstClass(people);
+        if (first == capacities.length) {
+            return 0;
+        }
+        Day day = days.get(date);
+        if (day == null) {
+            return -1 >>> (Integer.SIZE - HOURS);
+        }
+        int full = -1;
+        for (int k = first; k < capacities.length && full != 0; k++) {
+            full &= day.fullHours[k];
+        }
+        return ~full & -1 >>> (Integer.SIZE - HOURS);
+    }
+
+    /**
+     * Number of tables with room for {@code people} that are free at {@code hour} on {@code date}.
+     */
+    public synchronized int freeTables(LocalDate date, int hour, int people) {
+        Day day = days.get(date);
+        int free = 0;
+        for (int k = firstClass(people); k < capacities.length; k++) {
+            free += tableCounts[k] - (day == null ? 0 : day.reserved[k * HOURS + hour]);
+        }
+        return free;
+    }
+
+    private int firstClass(int people) {
+        int k = Arrays.binarySearch(capacities, people);
+        return k >= 0 ? k : -k - 1;
+    }
+}
@@ -2,13 +2,21 @@ package mizdooni.model;
 
 import java.time.LocalDateTime;
 
+/**
+ * A reservation of a table. Once it is added to a table or a user, its state lives in a row of the
+ * {@link ReservationStore} they were given, and this object is only a view of that row: it may be dropped, and reading the same
+ * reservation again yields an equal object. A view keeps the state it was created with, which it falls back to
+ * once the row has been archived.
+ */
 public class Reservation {
     private User user;
     private Restaurant restaurant;
     private Table table;
     private LocalDateTime datetime;
-    private int reservationNumber;
-    private boolean cancelled;
+    private volatile int reservationNumber;
+    private volatile boolean cancelled;
+    private ReservationStore store;
+    private volatile int row;
 
     public Reservation(User user, Restaurant restaurant, Table table, LocalDateTime datetime) {
         this.user = user;
@@ -17,14 +25,52 @@ public class Reservation {
         this.datetime = datetime;
         this.reservationNumber = -1;
         this.cancelled = false;
+        this.row = -1;
+    }
+
+    /**
+     * The row of this reservation in {@code store}, adding one the first time. A reservation lives in one store
+     * only, so its table and user must have been given the same one.
+     */
+    synchronized int store(ReservationStore store) {
+        if (row < 0) {
+            if (store == null) {
+                throw new IllegalStateException("table or user has no reservation store");
+            }
+            this.store = store;
+            row = store.add(this);
+        } else if (store != this.store) {
+            throw new IllegalStateException("reservation already belongs to another reservation store");
+        }
+        return row;
+    }
+
+    void attach(ReservationStore store, int row, int reservationNumber, boolean cancelled) {
+        this.store = store;
+        this.reservationNumber = reservationNumber;
+        this.cancelled = cancelled;
+        this.row = row;
+    }
+
+    int getRow() {
+        return row;
     }
 
     public void cancel() {
-        this.cancelled = true;
+        synchronized (this) {
+            this.cancelled = true;
+            if (row >= 0) {
+                store.cancel(row);
+            }
+        }
+        if (table != null) {
+            table.releaseReservation(this);
+        }
     }
 
     public boolean isCancelled() {
-        return cancelled;
+        int row = this.row;
+        return row >= 0 ? store.isCancelled(row, cancelled) : cancelled;
     }
 
     public User getUser() {
@@ -44,14 +90,32 @@ public class Reservation {
     }
 
     public int getReservationNumber() {
-        return reservationNumber;
+        int row = this.row;
+        return row >= 0 ? store.reservationNumber(row, reservationNumber) : reservationNumber;
     }
 
     public void setReservationNumber(int reservationNumber) {
         this.reservationNumber = reservationNumber;
+        int row = this.row;
+        if (row >= 0) {
+            store.setReservationNumber(row, reservationNumber);
+        }
     }
 
     public boolean isPastTime() {
         return datetime.isBefore(LocalDateTime.now());
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Reservation other && row >= 0 && row == other.row;
+    }
+
+    @Override
+    public int hashCode() {
+        return row >= 0 ? Integer.hashCode(row) : System.identityHashCode(this);
+    }
 }
@@ -0,0 +1,354 @@
+package mizdooni.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Column store holding every reservation as a row of ints: user id, restaurant id, table number, start time in
+ * minutes since the epoch and reservation number, plus a cancelled bit. Tables and users keep only row numbers,
+ * and {@link Reservation} objects are created from a row when someone asks for them.
+ * <p>
+ * Rows live in fixed-size chunks that never move, so reads take no lock. The identifying columns are written
+ * before the row number is handed out; the reservation number and the cancelled bit may change later and are
+ * stored in atomic arrays.
+ * <p>
+ * Past reservations can be archived: their rows are encoded into deflate-compressed blocks kept in off-heap
+ * pages, and a chunk is dropped once neither its table nor its user refers to any of its rows any more.
+ * Views created before that keep the state they were created with.
+ * <p>
+ * The database owns one store and hands it to the users and restaurants it adds, which pass it on to their
+ * tables and reservations; rows of one store are meaningless to another.
+ */
+public final class ReservationStore {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int COLD_PAGE_SIZE = 1 << 20;
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private int size;
+    private int[] chunkRefs = new int[0];
+
+    private final List<ByteBuffer> coldPages = new ArrayList<>();
+    private ByteBuffer coldPage = ByteBuffer.allocateDirect(0);
+
+    // objects rows refer to by id, for turning rows back into reservations
+    private final Map<Integer, User> users = new ConcurrentHashMap<>();
+    private final Map<Integer, Restaurant> restaurants = new ConcurrentHashMap<>();
+    private final Map<Long, Table> tables = new ConcurrentHashMap<>();
+
+    private static final class Chunk {
+        final int[] userIds = new int[CHUNK_SIZE];
+        final int[] restaurantIds = new int[CHUNK_SIZE];
+        final int[] tableNumbers = new int[CHUNK_SIZE];
+        final int[] minutes = new int[CHUNK_SIZE];
+        final AtomicIntegerArray numbers = new AtomicIntegerArray(CHUNK_SIZE);
+        final AtomicLongArray cancelled = new AtomicLongArray(CHUNK_SIZE / Long.SIZE);
+    }
+
+    public ReservationStore() {
+    }
+
+    /**
+     * Appends a row for {@code reservation} and returns its number.
+     */
+    synchronized int add(Reservation reservation) {
+        if ((size & CHUNK_MASK) == 0 && size >> CHUNK_SHIFT == chunks.length) {
+            Chunk[] grown = new Chunk[chunks.length + 1];
+            System.arraycopy(chunks, 0, grown, 0, chunks.length);
+            grown[chunks.length] = new Chunk();
+            chunks = grown;
+            int[] refs = new int[grown.length];
+            System.arraycopy(chunkRefs, 0, refs, 0, chunkRefs.length);
+            chunkRefs = refs;
+        }
+        int row = size++;
+        Chunk chunk = chunks[row >> CHUNK_SHIFT];
+        int i = row & CHUNK_MASK;
+
+        User user = reservation.getUser();
+        Restaurant restaurant = reservation.getRestaurant();
+        Table table = reservation.getTable();
+        chunk.userIds[i] = user.getId();
+        chunk.restaurantIds[i] = restaurant.getId();
+        chunk.tableNumbers[i] = table == null ? 0 : table.getTableNumber();
+        chunk.minutes[i] = minute(reservation.getDateTime());
+        chunk.numbers.set(i, reservation.getReservationNumber());
+        if (reservation.isCancelled()) {
+            cancel(row);
+        }
+        users.put(user.getId(), user);
+        restaurants.put(restaurant.getId(), restaurant);
+        if (table != null) {
+            tables.put(tableKey(restaurant.getId(), table.getTableNumber()), table);
+        }
+        return row;
+    }
+
+    /**
+     * Counts a table or user that refers to {@code row}.
+     */
+    synchronized void retain(int row) {
+        chunkRefs[row >> CHUNK_SHIFT]++;
+    }
+
+    /**
+     * Drops a reference taken by {@link #retain}; the chunk of {@code row} is freed once it is full and no row
+     * in it is referred to.
+     */
+    synchronized void release(int row) {
+        int chunk = row >> CHUNK_SHIFT;
+        if (--chunkRefs[chunk] == 0 && (chunk + 1) * CHUNK_SIZE <= size) {
+            chunks[chunk] = null;
+        }
+    }
+
+    /**
+     * Number of chunks still held on the heap.
+     */
+    int liveChunks() {
+        int live = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    private static long tableKey(int restaurantId, int tableNumber) {
+        return (long) restaurantId << Integer.SIZE | tableNumber & 0xFFFFFFFFL;
+    }
+
+    static int minute(LocalDateTime datetime) {
+        return (int) Math.floorDiv(datetime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    static LocalDateTime datetime(int minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    private Chunk chunk(int row) {
+        return chunks[row >> CHUNK_SHIFT];
+    }
+
+    int userId(int row) {
+        return chunk(row).userIds[row & CHUNK_MASK];
+    }
+
+    int restaurantId(int row) {
+        return chunk(row).restaurantIds[row & CHUNK_MASK];
+    }
+
+    int minute(int row) {
+        return chunk(row).minutes[row & CHUNK_MASK];
+    }
+
+    int reservationNumber(int row) {
+        return reservationNumber(row, -1);
+    }
+
+    /**
+     * The reservation number of {@code row}, or {@code fallback} if its chunk has been freed.
+     */
+    int reservationNumber(int row, int fallback) {
+        Chunk chunk = chunk(row);
+        return chunk == null ? fallback : chunk.numbers.get(row & CHUNK_MASK);
+    }
+
+    void setReservationNumber(int row, int number) {
+        Chunk chunk = chunk(row);
+        if (chunk != null) {
+            chunk.numbers.set(row & CHUNK_MASK, number);
+        }
+    }
+
+    boolean isCancelled(int row) {
+        return isCancelled(row, false);
+    }
+
+    /**
+     * Whether {@code row} is cancelled, or {@code fallback} if its chunk has been freed.
+     */
+    boolean isCancelled(int row, boolean fallback) {
+        Chunk chunk = chunk(row);
+        int i = row & CHUNK_MASK;
+        return chunk == null ? fallback : (chunk.cancelled.get(i >> 6) & 1L << i) != 0;
+    }
+
+    void cancel(int row) {
+        Chunk chunk = chunk(row);
+        int i = row & CHUNK_MASK;
+        if (chunk != null) {
+            chunk.cancelled.getAndUpdate(i >> 6, word -> word | 1L << i);
+        }
+    }
+
+    /**
+     * A new reservation object backed by {@code row}.
+     */
+    Reservation materialize(int row) {
+        Chunk chunk = chunk(row);
+        int i = row & CHUNK_MASK;
+        int restaurantId = chunk.restaurantIds[i];
+        Reservation reservation = new Reservation(users.get(chunk.userIds[i]), restaurants.get(restaurantId),
+                tables.get(tableKey(restaurantId, chunk.tableNumbers[i])), datetime(chunk.minutes[i]));
+        reservation.attach(this, row, chunk.numbers.get(i), (chunk.cancelled.get(i >> 6) & 1L << i) != 0);
+        return reservation;
+    }
+
+    List<Reservation> materialize(int[] rows, int count) {
+        List<Reservation> reservations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reservations.add(materialize(rows[i]));
+        }
+        return reservations;
+    }
+
+    /**
+     * Encodes {@code rows[0..count)} into a compressed block and returns a reference to it for
+     * {@link #readArchive}. The rows themselves stay until they are released.
+     */
+    long archive(int[] rows, int count) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(count * 8);
+        writeVarint(raw, count);
+        int previousRow = 0;
+        int previousMinute = 0;
+        for (int r = 0; r < count; r++) {
+            int row = rows[r];
+            Chunk chunk = chunk(row);
+            int i = row & CHUNK_MASK;
+            int minute = chunk.minutes[i];
+            writeVarint(raw, zigzag(row - previousRow));
+            writeVarint(raw, zigzag(minute - previousMinute));
+            previousRow = row;
+            previousMinute = minute;
+            writeVarint(raw, chunk.userIds[i]);
+            writeVarint(raw, chunk.restaurantIds[i]);
+            writeVarint(raw, chunk.tableNumbers[i]);
+            writeVarint(raw, chunk.numbers.get(i) << 1 | ((chunk.cancelled.get(i >> 6) & 1L << i) != 0 ? 1 : 0));
+        }
+        byte[] input = raw.toByteArray();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] compressed = new byte[input.length + 64];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        deflater.end();
+        return appendCold(input.length, compressed, length);
+    }
+
+    private synchronized long appendCold(int rawLength, byte[] compressed, int length) {
+        int needed = 2 * Integer.BYTES + length;
+        if (coldPage.remaining() < needed) {
+            coldPage = ByteBuffer.allocateDirect(Math.max(COLD_PAGE_SIZE, needed));
+            coldPages.add(coldPage);
+        }
+        long ref = (long) (coldPages.size() - 1) << Integer.SIZE | coldPage.position();
+        coldPage.putInt(length).putInt(rawLength).put(compressed, 0, length);
+        return ref;
+    }
+
+    /**
+     * Appends the reservations of an archived block to {@code out}. They keep their row numbers, so they equal
+     * the views created before archiving, but carry the state the rows had when they were archived.
+     */
+    void readArchive(long ref, List<Reservation> out) {
+        ByteBuffer page;
+        synchronized (this) {
+            page = coldPages.get((int) (ref >>> Integer.SIZE));
+        }
+        int offset = (int) ref;
+        byte[] compressed = new byte[page.getInt(offset)];
+        byte[] input = new byte[page.getInt(offset + Integer.BYTES)];
+        page.get(offset + 2 * Integer.BYTES, compressed);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            inflater.inflate(input);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("corrupt archived reservations", e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(input);
+        int count = readVarint(in);
+        int row = 0;
+        int minute = 0;
+        for (int r = 0; r < count; r++) {
+            row += unzigzag(readVarint(in));
+            minute += unzigzag(readVarint(in));
+            User user = users.get(readVarint(in));
+            int restaurantId = readVarint(in);
+            Table table = tables.get(tableKey(restaurantId, readVarint(in)));
+            int numberAndCancelled = readVarint(in);
+            Reservation reservation = new Reservation(user, restaurants.get(restaurantId), table, datetime(minute));
+            reservation.attach(this, row, numberAndCancelled >> 1, (numberAndCancelled & 1) != 0);
+            out.add(reservation);
+        }
+    }
+
+    /**
+     * The archived reservations of {@code blocks} followed by the ones of {@code rows[0..count)}, in the order
+     * their rows were added.
+     */
+    List<Reservation> materialize(long[] blocks, int[] rows, int count) {
+        if (blocks.length == 0) {
+            return materialize(rows, count);
+        }
+        List<Reservation> reservations = new ArrayList<>(count);
+        for (long block : blocks) {
+            readArchive(block, reservations);
+        }
+        reservations.addAll(materialize(rows, count));
+        reservations.sort(Comparator.comparingInt(Reservation::getRow));
+        return reservations;
+    }
+
+    private static int zigzag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    private static int unzigzag(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -2,10 +2,15 @@ package mizdooni.model;
 
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Restaurant {
-    private static int idCounter = 0;
+    private static final AtomicInteger idCounter = new AtomicInteger();
     private int id;
     private String name;
     private User manager;
@@ -16,11 +21,21 @@ public class Restaurant {
     private Address address;
     private String imageLink;
     private List<Table> tables;
-    private List<Review> reviews;
+    private Occupancy occupancy;
+    private Map<User, Integer> reviewSlots;
+    private Review[] reviewLog;
+    private long[] reviewSequences;
+    private int reviewLogSize;
+    private long nextReviewSequence;
+    private List<Review> reviewList;
+    private Rating ratingTotals;
+    private CatalogSegment catalog;
+    private int catalogRow;
+    private ReservationStore reservationStore;
 
     public Restaurant(String name, User manager, String type, LocalTime startTime, LocalTime endTime,
                       String description, Address address, String imageLink) {
-        this.id = idCounter++;
+        this.id = idCounter.getAndIncrement();
         this.name = name;
         this.manager = manager;
         this.type = type;
@@ -29,49 +44,150 @@ public class Restaurant {
         this.description = description;
         this.address = address;
         this.imageLink = imageLink;
-        this.tables = new ArrayList<>();
-        this.reviews = new ArrayList<>();
+        this.tables = new CopyOnWriteArrayList<>();
+        this.occupancy = new Occupancy();
+        this.reviewSlots = new HashMap<>();
+        this.reviewLog = new Review[4];
+        this.reviewSequences = new long[4];
+        this.reviewList = List.of();
+        this.ratingTotals = new Rating();
+    }
+
+    /**
+     * Switches the immutable attributes of this restaurant to row {@code row} of {@code segment} and drops the
+     * heap copies. Must happen before the restaurant is shared with other threads.
+     */
+    public void attachCatalog(CatalogSegment segment, int row) {
+        this.catalog = segment;
+        this.catalogRow = row;
+        this.name = null;
+        this.type = null;
+        this.startTime = null;
+        this.endTime = null;
+        this.description = null;
+        this.address = null;
+        this.imageLink = null;
+    }
+
+    /**
+     * Keeps the reservations made on the tables of this restaurant, current and future ones, in {@code store}.
+     * Must happen before any reservation is added.
+     */
+    public synchronized void attachReservationStore(ReservationStore store) {
+        this.reservationStore = store;
+        for (Table table : tables) {
+            table.attachReservationStore(store);
+        }
+    }
+
+    /**
+     * Reserved and free hours per day across the tables of this restaurant.
+     */
+    public Occupancy getOccupancy() {
+        return occupancy;
     }
 
     public Table getTable(int tableNumber) {
         return tables.stream().filter(t -> t.getTableNumber() == tableNumber).findFirst().orElse(null);
     }
 
-    public void addTable(Table table) {
+    public synchronized void addTable(Table table) {
         table.setTableNumber(tables.size() + 1);
+        occupancy.addTable(table.getSeatsNumber());
+        table.attachOccupancy(occupancy);
+        table.attachReservationStore(reservationStore);
         tables.add(table);
     }
 
-    public void addReview(Review review) {
-        for (Review r : reviews) {
-            if (r.getUser().equals(review.getUser())) {
-                reviews.remove(r);
-                break;
-            }
+    /**
+     * Adds several tables at once, numbering them as consecutive {@link #addTable} calls would, but copying the
+     * table list only once.
+     */
+    public synchronized void addTables(List<Table> newTables) {
+        int number = tables.size();
+        for (Table table : newTables) {
+            table.setTableNumber(++number);
+            occupancy.addTable(table.getSeatsNumber());
+            table.attachOccupancy(occupancy);
+            table.attachReservationStore(reservationStore);
         }
-        reviews.add(review);
+        tables.addAll(newTables);
     }
 
-    public Rating getAverageRating() {
-        Rating average = new Rating();
+    public synchronized void addReview(Review review) {
+        Integer previousSlot = reviewSlots.remove(review.getUser());
+        if (previousSlot != null) {
+            accumulate(reviewLog[previousSlot].getRating(), -1);
+            reviewLog[previousSlot] = null;
+        }
+        if (reviewLogSize == reviewLog.length) {
+            compactReviewLog();
+        }
+        review.setSequence(nextReviewSequence++);
+        reviewLog[reviewLogSize] = review;
+        reviewSequences[reviewLogSize] = review.getSequence();
+        reviewSlots.put(review.getUser(), reviewLogSize++);
+        accumulate(review.getRating(), 1);
+        reviewList = null;
+    }
 
-        for (Review r : reviews) {
-            average.food += r.getRating().food;
-            average.service += r.getRating().service;
-            average.ambiance += r.getRating().ambiance;
-            average.overall += r.getRating().overall;
+    /**
+     * Drops slots of replaced reviews, growing the log only when at least half of it is still live, so every
+     * slot is moved a constant number of times on average.
+     */
+    private void compactReviewLog() {
+        int capacity = reviewSlots.size() * 2 >= reviewLog.length ? reviewLog.length * 2 : reviewLog.length;
+        Review[] log = new Review[capacity];
+        long[] sequences = new long[capacity];
+        int size = 0;
+        for (int i = 0; i < reviewLogSize; i++) {
+            if (reviewLog[i] != null) {
+                log[size] = reviewLog[i];
+                sequences[size] = reviewSequences[i];
+                reviewSlots.put(log[size].getUser(), size);
+                size++;
+            }
         }
+        reviewLog = log;
+        reviewSequences = sequences;
+        reviewLogSize = size;
+    }
 
-        if (!reviews.isEmpty()) {
-            average.food /= reviews.size();
-            average.service /= reviews.size();
-            average.ambiance /= reviews.size();
-            average.overall /= reviews.size();
+    private void accumulate(Rating rating, int sign) {
+        if (reviewSlots.isEmpty()) {
+            ratingTotals = new Rating();
+            return;
         }
+        ratingTotals.food += sign * rating.food;
+        ratingTotals.service += sign * rating.service;
+        ratingTotals.ambiance += sign * rating.ambiance;
+        ratingTotals.overall += sign * rating.overall;
+    }
 
+    /**
+     * The current review of {@code user}, or null.
+     */
+    public synchronized Review getReview(User user) {
+        Integer slot = reviewSlots.get(user);
+        return slot == null ? null : reviewLog[slot];
+    }
+
+    public synchronized Rating getAverageRating() {
+        Rating average = new Rating();
+        int count = reviewSlots.size();
+        if (count > 0) {
+            average.food = ratingTotals.food / count;
+            average.service = ratingTotals.service / count;
+            average.ambiance = ratingTotals.ambiance / count;
+            average.overall = ratingTotals.overall / count;
+        }
         return average;
     }
 
+    public synchronized int getReviewCount() {
+        return reviewSlots.size();
+    }
+
     public int getStarCount() {
         return getAverageRating().getStarCount();
     }
@@ -89,7 +205,7 @@ public class Restaurant {
     }
 
     public String getName() {
-        return name;
+        return catalog == null ? name : catalog.name(catalogRow);
     }
 
     public User getManager() {
@@ -97,22 +213,92 @@ public class Restaurant {
     }
 
     public String getType() {
-        return type;
+        return catalog == null ? type : catalog.type(catalogRow);
     }
 
     public LocalTime getStartTime() {
-        return startTime;
+        return catalog == null ? startTime : catalog.startTime(catalogRow);
     }
 
     public LocalTime getEndTime() {
-        return endTime;
+        return catalog == null ? endTime : catalog.endTime(catalogRow);
     }
 
     public Address getAddress() {
-        return address;
+        return catalog == null ? address : catalog.address(catalogRow);
+    }
+
+    public String getDescription() {
+        return catalog == null ? description : catalog.description(catalogRow);
+    }
+
+    public String getImageLink() {
+        return catalog == null ? imageLink : catalog.imageLink(catalogRow);
+    }
+
+    /**
+     * Whether the type is {@code type}. {@code utf8} is the same value encoded as UTF-8; a restaurant in a catalog
+     * segment compares it with its row in place instead of decoding the row.
+     */
+    public boolean hasType(String type, byte[] utf8) {
+        return catalog == null ? this.type.equals(type) : catalog.typeEquals(catalogRow, utf8);
+    }
+
+    /**
+     * Whether the address is in {@code city}, compared like {@link #hasType}.
+     */
+    public boolean hasCity(String city, byte[] utf8) {
+        if (catalog == null) {
+            return address != null && city.equals(address.getCity());
+        }
+        return catalog.cityEquals(catalogRow, utf8);
     }
 
-    public List<Review> getReviews() {
-        return reviews;
+    /**
+     * Whether the name contains {@code part}, compared like {@link #hasType}.
+     */
+    public boolean nameContains(String part, byte[] utf8) {
+        return catalog == null ? name.contains(part) : catalog.nameContains(catalogRow, utf8);
+    }
+
+    /**
+     * Reviews in the order they were written; a user's replaced review moves to the end. The returned list is
+     * an immutable snapshot that is shared between calls until the next review is added.
+     */
+    public synchronized List<Review> getReviews() {
+        if (reviewList == null) {
+            List<Review> live = new ArrayList<>(reviewSlots.size());
+            for (int i = 0; i < reviewLogSize; i++) {
+                if (reviewLog[i] != null) {
+                    live.add(reviewLog[i]);
+                }
+            }
+            reviewList = Collections.unmodifiableList(live);
+        }
+        return reviewList;
+    }
+
+    /**
+     * Up to {@code limit} reviews, in the order of {@link #getReviews()}, that come after the review with the
+     * given sequence number; pass -1 to start from the first review. Costs a binary search plus the page.
+     */
+    public synchronized List<Review> getReviewsAfter(long sequence, int limit) {
+        int low = 0;
+        int high = reviewLogSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (reviewSequences[mid] <= sequence) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<Review> page = new ArrayList<>(Math.min(limit, reviewLogSize - low));
+        for (int i = low; i < reviewLogSize && page.size() < limit; i++) {
+            if (reviewLog[i] != null) {
+                page.add(reviewLog[i]);
+            }
+        }
+        return page;
     }
 }
@@ -3,42 +3,128 @@ package mizdooni.model;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.PriorityQueue;
 
 public class RestaurantSearchFilter {
+    public static final String SORT_RATING = "rating";
+    public static final String SORT_REVIEWS = "reviews";
+
     private String name;
     private String type;
     private String location;
     private String sort;
     private String order;
 
-    public List<Restaurant> filter(List<Restaurant> restaurants) {
-        List<Restaurant> rest = new ArrayList<>(restaurants);
-        if (name != null) {
-            rest = rest.stream().filter(r -> r.getName().contains(name)).collect(Collectors.toList());
+    /**
+     * Orders restaurants that already match this filter according to its sort and order settings. The input
+     * list is left untouched.
+     */
+    public List<Restaurant> sort(List<Restaurant> restaurants) {
+        return sort(restaurants, restaurants.size());
+    }
+
+    /**
+     * Returns the first {@code limit} restaurants of {@link #sort(List)}. When the limit is smaller than the
+     * input, a bounded heap selects them in O(n log limit) instead of sorting everything.
+     */
+    public List<Restaurant> sort(List<Restaurant> restaurants, int limit) {
+        Comparator<Restaurant> comparator = comparator();
+        if (comparator == null) {
+            return restaurants.size() <= limit ? restaurants : restaurants.subList(0, limit);
         }
-        if (type != null) {
-            rest = rest.stream().filter(r -> r.getType().equals(type)).collect(Collectors.toList());
+        if (limit >= restaurants.size()) {
+            List<Restaurant> sorted = new ArrayList<>(restaurants);
+            sorted.sort(comparator);
+            return sorted;
         }
-        if (location != null) {
-            rest = rest.stream().filter(r -> r.getAddress().getCity().equals(location)).collect(Collectors.toList());
+
+        PriorityQueue<Restaurant> heap = new PriorityQueue<>(limit + 1, comparator.reversed());
+        for (Restaurant restaurant : restaurants) {
+            heap.add(restaurant);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
         }
-        if (sort != null) {
-            if (sort.equals("rating")) {
-                Comparator<Restaurant> comparator = Comparator.comparing(r -> r.getAverageRating().overall);
-                if (order != null && order.equals("asc")) {
-                    comparator = comparator.reversed();
-                }
-                rest.sort(comparator.reversed());
-            } else if (sort.equals("reviews")) {
-                Comparator<Restaurant> comparator = Comparator.comparingInt(r -> r.getReviews().size());
-                if (order != null && order.equals("asc")) {
-                    comparator = comparator.reversed();
+        List<Restaurant> top = new ArrayList<>(heap);
+        top.sort(comparator);
+        return top;
+    }
+
+    /**
+     * Like {@link #sort(List, int)}, but keeps only the restaurants that come strictly after the sort key
+     * ({@code score}, {@code id}) of the last restaurant of the previous page, so a later page costs no more
+     * than the first. Requires {@link #isSorted()}.
+     */
+    public List<Restaurant> sortAfter(List<Restaurant> restaurants, double score, int id, int limit) {
+        Comparator<Restaurant> comparator = comparator();
+        PriorityQueue<Restaurant> heap = new PriorityQueue<>(Math.min(limit, restaurants.size()) + 1, comparator.reversed());
+        for (Restaurant restaurant : restaurants) {
+            if (compareKeys(score(restaurant), restaurant.getId(), score, id) > 0) {
+                heap.add(restaurant);
+                if (heap.size() > limit) {
+                    heap.poll();
                 }
-                rest.sort(comparator.reversed());
             }
         }
-        return rest;
+        List<Restaurant> top = new ArrayList<>(heap);
+        top.sort(comparator);
+        return top;
+    }
+
+    /**
+     * The value this filter sorts by, or 0 if it does not sort.
+     */
+    public double score(Restaurant restaurant) {
+        if (SORT_RATING.equals(sort)) {
+            return restaurant.getAverageRating().overall;
+        }
+        if (SORT_REVIEWS.equals(sort)) {
+            return restaurant.getReviewCount();
+        }
+        return 0;
+    }
+
+    private int compareKeys(double score, int id, double otherScore, int otherId) {
+        int byScore = Double.compare(score, otherScore);
+        if (byScore != 0) {
+            return isAscending() ? byScore : -byScore;
+        }
+        return Integer.compare(id, otherId);
+    }
+
+    private Comparator<Restaurant> comparator() {
+        if (!isSorted()) {
+            return null;
+        }
+        return (a, b) -> compareKeys(score(a), a.getId(), score(b), b.getId());
+    }
+
+    public boolean isSorted() {
+        return SORT_RATING.equals(sort) || SORT_REVIEWS.equals(sort);
+    }
+
+    public boolean hasCriteria() {
+        return name != null || type != null || location != null;
+    }
+
+    public boolean isAscending() {
+        return "asc".equals(order);
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getLocation() {
+        return location;
     }
 
     public void setName(String name) {
@@ -7,6 +7,7 @@ public class Review {
     private String comment;
     private LocalDateTime datetime;
     private User user;
+    private long sequence;
 
     public Review(User user, Rating rating, String comment, LocalDateTime datetime) {
         this.user = user;
@@ -26,4 +27,23 @@ public class Review {
     public User getUser() {
         return user;
     }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public LocalDateTime getDatetime() {
+        return datetime;
+    }
+
+    /**
+     * Position of this review in its restaurant's review order, assigned when the review is added.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
 }
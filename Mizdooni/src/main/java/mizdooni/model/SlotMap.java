@@ -0,0 +1,93 @@
+package mizdooni.model;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from int slot keys to int rows, with linear probing, for the active reservations of a
+ * table. Not thread-safe.
+ */
+final class SlotMap {
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys = emptyKeys(8);
+    private int[] values = new int[8];
+    private int size;
+
+    private static int[] emptyKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private int index(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ h >>> 16) & (keys.length - 1);
+    }
+
+    boolean containsKey(int key) {
+        for (int i = index(key); keys[i] != EMPTY; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void put(int key, int value) {
+        if ((size + 1) * 3 > keys.length * 2) {
+            resize();
+        }
+        int i = index(key);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & (keys.length - 1);
+        }
+        if (keys[i] == EMPTY) {
+            size++;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Removes {@code key} if it maps to {@code value}; returns whether it did.
+     */
+    boolean remove(int key, int value) {
+        int mask = keys.length - 1;
+        int i = index(key);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        if (values[i] != value) {
+            return false;
+        }
+        // shift later entries of the probe run back so that lookups never stop at the hole
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = index(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = emptyKeys(oldKeys.length * 2);
+        values = new int[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
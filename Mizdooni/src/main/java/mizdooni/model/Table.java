@@ -1,28 +1,202 @@
 package mizdooni.model;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Table {
     private int tableNumber;
     private int restaurantId;
     private int seatsNumber;
-    private List<Reservation> reservations;
+    private int[] reservationRows;
+    private int reservationCount;
+    private long[] archivedBlocks;
+    private int[] archivedFirstMinutes;
+    private int[] archivedLastMinutes;
+    private NavigableMap<LocalDate, int[]> reservationsByDay;
+    private SlotMap activeReservations;
+    private Map<LocalDate, Integer> reservedHours;
+    private Occupancy occupancy;
+    private ReservationStore reservationStore;
 
     public Table(int tableNumber, int restaurantId, int seatsNumber) {
         this.tableNumber = tableNumber;
         this.restaurantId = restaurantId;
         this.seatsNumber = seatsNumber;
-        this.reservations = new ArrayList<>();
+        this.reservationRows = new int[0];
+        this.archivedBlocks = new long[0];
+        this.archivedFirstMinutes = new int[0];
+        this.archivedLastMinutes = new int[0];
+        this.reservationsByDay = new TreeMap<>();
+        this.activeReservations = new SlotMap();
+        this.reservedHours = new ConcurrentHashMap<>();
     }
 
-    public void addReservation(Reservation reservation) {
-        reservations.add(reservation);
+    /**
+     * Atomically books the reservation's slot on this table. Returns false without adding anything when
+     * the slot already holds an active reservation. Readers of the table see the reservation as soon as it is
+     * booked, so it should already carry its number from {@link User#nextReservationNumber}.
+     */
+    public synchronized boolean tryReserve(Reservation reservation) {
+        if (activeReservations.containsKey(ReservationStore.minute(reservation.getDateTime()))) {
+            return false;
+        }
+        addReservation(reservation);
+        return true;
     }
 
-    public boolean isReserved(LocalDateTime datetime) {
-        return reservations.stream().anyMatch(r -> r.getDateTime().equals(datetime) && !r.isCancelled());
+    public synchronized void addReservation(Reservation reservation) {
+        int row = reservation.store(reservationStore);
+        reservationStore.retain(row);
+        if (reservationCount == reservationRows.length) {
+            reservationRows = Arrays.copyOf(reservationRows, Math.max(4, reservationCount * 2));
+        }
+        reservationRows[reservationCount++] = row;
+        indexByDay(reservation.getDateTime().toLocalDate(), row);
+        if (!reservation.isCancelled()) {
+            activeReservations.put(ReservationStore.minute(reservation.getDateTime()), row);
+            if (isOnTheHour(reservation.getDateTime())) {
+                reserveHour(reservation.getDateTime());
+            }
+        }
+    }
+
+    private void reserveHour(LocalDateTime datetime) {
+        int hours = reservedHours.getOrDefault(datetime.toLocalDate(), 0);
+        if ((hours & hourBit(datetime)) == 0) {
+            reservedHours.put(datetime.toLocalDate(), hours | hourBit(datetime));
+            if (occupancy != null) {
+                occupancy.reserve(datetime.toLocalDate(), datetime.getHour(), seatsNumber);
+            }
+        }
+    }
+
+    /**
+     * Starts reporting this table's reserved hours to {@code occupancy}, beginning with the current ones.
+     */
+    synchronized void attachOccupancy(Occupancy occupancy) {
+        this.occupancy = occupancy;
+        reservedHours.forEach((date, hours) -> {
+            for (int h = hours; h != 0; h &= h - 1) {
+                occupancy.reserve(date, Integer.numberOfTrailingZeros(h), seatsNumber);
+            }
+        });
+    }
+
+    /**
+     * Keeps the reservations of this table in {@code store}. Must happen before any reservation is added.
+     */
+    synchronized void attachReservationStore(ReservationStore store) {
+        this.reservationStore = store;
+    }
+
+    private void indexByDay(LocalDate date, int row) {
+        int[] rows = reservationsByDay.get(date);
+        if (rows == null) {
+            rows = new int[]{row};
+        } else {
+            rows = Arrays.copyOf(rows, rows.length + 1);
+            rows[rows.length - 1] = row;
+        }
+        reservationsByDay.put(date, rows);
+    }
+
+    synchronized void releaseReservation(Reservation reservation) {
+        LocalDateTime datetime = reservation.getDateTime();
+        int row = reservation.getRow();
+        if (row >= 0 && activeReservations.remove(ReservationStore.minute(datetime), row) && isOnTheHour(datetime)) {
+            reservedHours.computeIfPresent(datetime.toLocalDate(), (d, mask) -> {
+                int remaining = mask & ~hourBit(datetime);
+                return remaining == 0 ? null : remaining;
+            });
+            if (occupancy != null) {
+                occupancy.release(datetime.toLocalDate(), datetime.getHour(), seatsNumber);
+            }
+        }
+    }
+
+    /**
+     * Moves the reservations starting before {@code cutoff} into a compressed archive block. They stay visible
+     * through {@link #getReservations()} but no longer count as active, so {@code cutoff} must not be later than
+     * the earliest time that can still be booked.
+     */
+    public synchronized void archiveBefore(LocalDateTime cutoff) {
+        ReservationStore store = reservationStore;
+        int cutoffMinute = ReservationStore.minute(cutoff);
+        int[] archived = new int[reservationCount];
+        int archivedCount = 0;
+        int firstMinute = Integer.MAX_VALUE;
+        int lastMinute = Integer.MIN_VALUE;
+        int kept = 0;
+        for (int i = 0; i < reservationCount; i++) {
+            int row = reservationRows[i];
+            int minute = store.minute(row);
+            if (minute < cutoffMinute) {
+                archived[archivedCount++] = row;
+                firstMinute = Math.min(firstMinute, minute);
+                lastMinute = Math.max(lastMinute, minute);
+            } else {
+                reservationRows[kept++] = row;
+            }
+        }
+        if (archivedCount == 0) {
+            return;
+        }
+        int block = archivedBlocks.length;
+        archivedBlocks = Arrays.copyOf(archivedBlocks, block + 1);
+        archivedFirstMinutes = Arrays.copyOf(archivedFirstMinutes, block + 1);
+        archivedLastMinutes = Arrays.copyOf(archivedLastMinutes, block + 1);
+        archivedBlocks[block] = store.archive(archived, archivedCount);
+        archivedFirstMinutes[block] = firstMinute;
+        archivedLastMinutes[block] = lastMinute;
+        for (int i = 0; i < archivedCount; i++) {
+            activeReservations.remove(store.minute(archived[i]), archived[i]);
+        }
+        reservedHours.keySet().removeIf(date -> date.isBefore(cutoff.toLocalDate()));
+        if (occupancy != null) {
+            occupancy.removeBefore(cutoff.toLocalDate());
+        }
+        // rebuild the days the archived rows fell on from what is left of them
+        reservationsByDay.headMap(cutoff.toLocalDate(), true).clear();
+        for (int i = 0; i < kept; i++) {
+            LocalDate date = ReservationStore.datetime(store.minute(reservationRows[i])).toLocalDate();
+            if (!date.isAfter(cutoff.toLocalDate())) {
+                indexByDay(date, reservationRows[i]);
+            }
+        }
+        Arrays.fill(reservationRows, kept, reservationCount, 0);
+        reservationCount = kept;
+        for (int i = 0; i < archivedCount; i++) {
+            store.release(archived[i]);
+        }
+    }
+
+    /**
+     * Bitmask of the hours of {@code date} that have an active reservation starting exactly on the hour;
+     * bit {@code i} stands for {@code i:00}.
+     */
+    public int getReservedHours(LocalDate date) {
+        return reservedHours.getOrDefault(date, 0);
+    }
+
+    private static boolean isOnTheHour(LocalDateTime datetime) {
+        return datetime.toLocalTime().equals(LocalTime.of(datetime.getHour(), 0));
+    }
+
+    private static int hourBit(LocalDateTime datetime) {
+        return 1 << datetime.getHour();
+    }
+
+    public synchronized boolean isReserved(LocalDateTime datetime) {
+        return activeReservations.containsKey(ReservationStore.minute(datetime));
     }
 
     public int getTableNumber() {
@@ -37,7 +211,43 @@ public class Table {
         return seatsNumber;
     }
 
-    public List<Reservation> getReservations() {
+    /**
+     * All reservations made on this table, cancelled and archived ones included, created afresh from the
+     * reservation store.
+     */
+    public synchronized List<Reservation> getReservations() {
+        return reservationStore.materialize(archivedBlocks, reservationRows, reservationCount);
+    }
+
+    /**
+     * Reservations made on this table for the days from {@code from} to {@code to}, both included, in time order,
+     * cancelled and archived ones included. Only the requested days and the archive blocks that overlap them are
+     * read.
+     */
+    public synchronized List<Reservation> getReservations(LocalDate from, LocalDate to) {
+        List<Reservation> reservations = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return reservations;
+        }
+        ReservationStore store = reservationStore;
+        for (int block = 0; block < archivedBlocks.length; block++) {
+            if (ReservationStore.datetime(archivedFirstMinutes[block]).toLocalDate().isAfter(to)
+                    || ReservationStore.datetime(archivedLastMinutes[block]).toLocalDate().isBefore(from)) {
+                continue;
+            }
+            int start = reservations.size();
+            store.readArchive(archivedBlocks[block], reservations);
+            reservations.subList(start, reservations.size()).removeIf(reservation -> {
+                LocalDate date = reservation.getDateTime().toLocalDate();
+                return date.isBefore(from) || date.isAfter(to);
+            });
+        }
+        for (int[] rows : reservationsByDay.subMap(from, true, to, true).values()) {
+            for (int row : rows) {
+                reservations.add(store.materialize(row));
+            }
+        }
+        reservations.sort(Comparator.comparing(Reservation::getDateTime));
         return reservations;
     }
 }
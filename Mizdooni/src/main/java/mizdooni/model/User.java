@@ -2,7 +2,9 @@ package mizdooni.model;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class User {
     public enum Role {
@@ -10,7 +12,7 @@ public class User {
         manager,
     }
 
-    private static int idCounter = 0;
+    private static final AtomicInteger idCounter = new AtomicInteger();
     private int id;
     private String username;
     private String password;
@@ -18,42 +20,144 @@ public class User {
     private Address address;
     private Role role;
     private int reservationCounter;
-    private List<Reservation> reservations;
+    private int[] reservationRows;
+    private int reservationCount;
+    private long[] archivedBlocks;
+    private int[] visitedRestaurants;
+    private ReservationStore reservationStore;
 
     public User(String username, String password, String email, Address address, Role role) {
-        this.id = idCounter++;
+        this.id = idCounter.getAndIncrement();
         this.username = username;
         this.password = password;
         this.email = email;
         this.address = address;
         this.role = role;
         this.reservationCounter = 0;
-        this.reservations = new ArrayList<>();
+        this.reservationRows = new int[0];
+        this.archivedBlocks = new long[0];
+        this.visitedRestaurants = new int[0];
     }
 
-    public void addReservation(Reservation reservation) {
-        reservation.setReservationNumber(reservationCounter);
-        reservationCounter++;
-        reservations.add(reservation);
+    /**
+     * Keeps the reservations of this user in {@code store}. Must happen before any reservation is added.
+     */
+    public synchronized void attachReservationStore(ReservationStore store) {
+        this.reservationStore = store;
     }
 
-    public boolean checkReserved(Restaurant restaurant) {
-        return reservations.stream().anyMatch(r -> !r.isCancelled() &&
-                r.getDateTime().isBefore(LocalDateTime.now()) &&
-                r.getRestaurant().equals(restaurant));
+    /**
+     * Takes the next reservation number of this user. A reservation given its number this way before it is placed
+     * on a table is never seen there without one; the number is skipped if the reservation is never added.
+     */
+    public synchronized int nextReservationNumber() {
+        return reservationCounter++;
     }
 
-    public Reservation getReservation(int reservationNumber) {
-        for (Reservation r : reservations) {
-            if (r.getReservationNumber() == reservationNumber && !r.isCancelled()) {
-                return r;
+    /**
+     * Adds {@code reservation}, keeping the number it already has or giving it the next one if it has none.
+     */
+    public synchronized void addReservation(Reservation reservation) {
+        int number = reservation.getReservationNumber();
+        if (number < 0) {
+            number = reservationCounter;
+            reservation.setReservationNumber(number);
+        }
+        reservationCounter = Math.max(reservationCounter, number + 1);
+        int row = reservation.store(reservationStore);
+        reservationStore.retain(row);
+        if (reservationCount == reservationRows.length) {
+            reservationRows = Arrays.copyOf(reservationRows, Math.max(4, reservationCount * 2));
+        }
+        reservationRows[reservationCount++] = row;
+    }
+
+    /**
+     * Moves the reservations starting before {@code cutoff} into a compressed archive block, remembering which
+     * restaurants they were kept at.
+     */
+    public synchronized void archiveBefore(LocalDateTime cutoff) {
+        ReservationStore store = reservationStore;
+        int cutoffMinute = ReservationStore.minute(cutoff);
+        int[] archived = new int[reservationCount];
+        int archivedCount = 0;
+        int kept = 0;
+        for (int i = 0; i < reservationCount; i++) {
+            int row = reservationRows[i];
+            if (store.minute(row) < cutoffMinute) {
+                archived[archivedCount++] = row;
+                if (!store.isCancelled(row)) {
+                    addVisited(store.restaurantId(row));
+                }
+            } else {
+                reservationRows[kept++] = row;
+            }
+        }
+        if (archivedCount == 0) {
+            return;
+        }
+        archivedBlocks = Arrays.copyOf(archivedBlocks, archivedBlocks.length + 1);
+        archivedBlocks[archivedBlocks.length - 1] = store.archive(archived, archivedCount);
+        Arrays.fill(reservationRows, kept, reservationCount, 0);
+        reservationCount = kept;
+        for (int i = 0; i < archivedCount; i++) {
+            store.release(archived[i]);
+        }
+    }
+
+    private void addVisited(int restaurantId) {
+        int i = Arrays.binarySearch(visitedRestaurants, restaurantId);
+        if (i < 0) {
+            i = -i - 1;
+            int[] grown = new int[visitedRestaurants.length + 1];
+            System.arraycopy(visitedRestaurants, 0, grown, 0, i);
+            grown[i] = restaurantId;
+            System.arraycopy(visitedRestaurants, i, grown, i + 1, visitedRestaurants.length - i);
+            visitedRestaurants = grown;
+        }
+    }
+
+    public synchronized boolean checkReserved(Restaurant restaurant) {
+        if (Arrays.binarySearch(visitedRestaurants, restaurant.getId()) >= 0) {
+            return true;
+        }
+        ReservationStore store = reservationStore;
+        int now = ReservationStore.minute(LocalDateTime.now());
+        for (int i = 0; i < reservationCount; i++) {
+            int row = reservationRows[i];
+            if (store.restaurantId(row) == restaurant.getId() && store.minute(row) < now && !store.isCancelled(row)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized Reservation getReservation(int reservationNumber) {
+        ReservationStore store = reservationStore;
+        for (int i = 0; i < reservationCount; i++) {
+            int row = reservationRows[i];
+            if (store.reservationNumber(row) == reservationNumber && !store.isCancelled(row)) {
+                return store.materialize(row);
+            }
+        }
+        List<Reservation> archived = new ArrayList<>();
+        for (long block : archivedBlocks) {
+            store.readArchive(block, archived);
+        }
+        for (Reservation reservation : archived) {
+            if (reservation.getReservationNumber() == reservationNumber && !reservation.isCancelled()) {
+                return reservation;
             }
         }
         return null;
     }
 
-    public List<Reservation> getReservations() {
-        return reservations;
+    /**
+     * All reservations of this user, cancelled and archived ones included, created afresh from the reservation
+     * store.
+     */
+    public synchronized List<Reservation> getReservations() {
+        return reservationStore.materialize(archivedBlocks, reservationRows, reservationCount);
     }
 
     public boolean checkPassword(String pass) {
@@ -72,6 +176,14 @@ public class User {
         return email;
     }
 
+    public String getPassword() {
+        return password;
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
     public Role getRole() {
         return role;
     }
@@ -2,12 +2,14 @@ package mizdooni.model.mixin;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import mizdooni.model.Reservation;
+import mizdooni.model.ReservationStore;
 import mizdooni.model.Restaurant;
 import mizdooni.model.User;
 import mizdooni.response.serializer.UserShortSerializer;
@@ -32,6 +34,21 @@ abstract class ReservationMixin {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
     private LocalDateTime datetime;
 
+    // kept in the reservation store once the reservation is stored
+    @JsonIgnore
+    private int reservationNumber;
+    @JsonIgnore
+    private boolean cancelled;
+    @JsonIgnore
+    private int row;
+    @JsonIgnore
+    private ReservationStore store;
+
+    @JsonProperty
+    abstract int getReservationNumber();
+    @JsonProperty("cancelled")
+    abstract boolean isCancelled();
+
     @JsonProperty("isPastTime")
     abstract boolean isPastTime();
 
@@ -9,12 +9,12 @@ import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import mizdooni.model.*;
-import mizdooni.response.serializer.ListSizeSerializer;
 import org.springframework.boot.jackson.JsonMixin;
 
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 
 @JsonMixin(Restaurant.class)
 @JsonAutoDetect(
@@ -27,20 +27,67 @@ abstract class RestaurantMixin {
     @JsonSerialize(using = UsernameSerializer.class)
     private User manager;
 
-    @JsonFormat(pattern = "HH:mm")
+    @JsonIgnore
+    private Occupancy occupancy;
+    @JsonIgnore
+    private String name;
+    @JsonIgnore
+    private String type;
+    @JsonIgnore
     private LocalTime startTime;
-    @JsonFormat(pattern = "HH:mm")
+    @JsonIgnore
     private LocalTime endTime;
-
-    @JsonProperty("image")
+    @JsonIgnore
+    private String description;
+    @JsonIgnore
+    private Address address;
+    @JsonIgnore
     private String imageLink;
 
     @JsonIgnore
     private List<Table> tables;
 
-    @JsonProperty("totalReviews")
-    @JsonSerialize(using = ListSizeSerializer.class)
-    private List<Review> reviews;
+    @JsonIgnore
+    private Map<User, Integer> reviewSlots;
+    @JsonIgnore
+    private Review[] reviewLog;
+    @JsonIgnore
+    private long[] reviewSequences;
+    @JsonIgnore
+    private int reviewLogSize;
+    @JsonIgnore
+    private long nextReviewSequence;
+    @JsonIgnore
+    private List<Review> reviewList;
+
+    @JsonIgnore
+    private Rating ratingTotals;
+
+    @JsonIgnore
+    private CatalogSegment catalog;
+    @JsonIgnore
+    private int catalogRow;
+
+    @JsonIgnore
+    private ReservationStore reservationStore;
+
+    // catalog attributes may live in a CatalogSegment instead of the fields
+    @JsonProperty
+    abstract String getName();
+    @JsonProperty
+    abstract String getType();
+    @JsonProperty
+    @JsonFormat(pattern = "HH:mm")
+    abstract LocalTime getStartTime();
+    @JsonProperty
+    @JsonFormat(pattern = "HH:mm")
+    abstract LocalTime getEndTime();
+    @JsonProperty
+    abstract String getDescription();
+    @JsonProperty
+    abstract Address getAddress();
+    @JsonProperty("image")
+    abstract String getImageLink();
 
     @JsonProperty
     abstract int getMaxSeatsNumber();
@@ -48,6 +95,8 @@ abstract class RestaurantMixin {
     abstract int getStarCount();
     @JsonProperty
     abstract Rating getAverageRating();
+    @JsonProperty("totalReviews")
+    abstract int getReviewCount();
 
     static class UsernameSerializer extends JsonSerializer<User> {
         @Override
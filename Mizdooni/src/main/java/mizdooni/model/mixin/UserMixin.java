@@ -2,12 +2,10 @@ package mizdooni.model.mixin;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import mizdooni.model.Reservation;
+import mizdooni.model.ReservationStore;
 import mizdooni.model.User;
 import org.springframework.boot.jackson.JsonMixin;
 
-import java.util.List;
-
 @JsonMixin(User.class)
 @JsonAutoDetect(
         fieldVisibility = JsonAutoDetect.Visibility.ANY,
@@ -20,5 +18,13 @@ abstract class UserMixin {
     @JsonIgnore
     private int reservationCounter;
     @JsonIgnore
-    private List<Reservation> reservations;
+    private int[] reservationRows;
+    @JsonIgnore
+    private int reservationCount;
+    @JsonIgnore
+    private long[] archivedBlocks;
+    @JsonIgnore
+    private int[] visitedRestaurants;
+    @JsonIgnore
+    private ReservationStore reservationStore;
 }
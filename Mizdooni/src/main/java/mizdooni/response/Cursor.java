@@ -0,0 +1,65 @@
+package mizdooni.response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+/**
+ * Opaque continuation tokens for {@link CursorPage}. A cursor is a kind tag followed by the key of the last
+ * item served, so the next page can seek straight past it instead of skipping an offset.
+ */
+public final class Cursor {
+    private static final String SEPARATOR = ":";
+
+    private Cursor() {
+    }
+
+    public static String encode(String kind, Object... key) {
+        StringJoiner joiner = new StringJoiner(SEPARATOR);
+        joiner.add(kind);
+        for (Object part : key) {
+            joiner.add(String.valueOf(part));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the key parts of a cursor of the given kind, or null for an absent cursor, which stands for the
+     * first page.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another kind of listing
+     */
+    public static String[] decode(String cursor, String kind, int parts) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String[] decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+        if (decoded.length != parts + 1 || !decoded[0].equals(kind)) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+        String[] key = new String[parts];
+        System.arraycopy(decoded, 1, key, 0, parts);
+        return key;
+    }
+
+    public static long decodeLong(String part) {
+        try {
+            return Long.parseLong(part);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+
+    public static double decodeDouble(String part) {
+        try {
+            return Double.parseDouble(part);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package mizdooni.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import mizdooni.response.serializer.ListSizeSerializer;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of a listing that is walked with opaque cursors instead of page numbers. Fetching a page costs the
+ * same however deep it is, and the total is only counted when the client asks for it.
+ */
+public class CursorPage<T> {
+    @JsonProperty("size")
+    @JsonSerialize(using = ListSizeSerializer.class)
+    private List<T> pageList;
+    @JsonProperty
+    private String nextCursor;
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer total;
+
+    /**
+     * Builds a page from up to {@code size + 1} items fetched after the previous cursor; the extra item only
+     * tells whether another page follows and is not returned.
+     *
+     * @param nextCursor maps the last item of the page to the cursor of the next page
+     */
+    public CursorPage(List<T> fetched, int size, Function<T, String> nextCursor, Integer total) {
+        if (size < 1) {
+            throw new IllegalArgumentException("invalid page size");
+        }
+        if (fetched.size() > size) {
+            this.pageList = fetched.subList(0, size);
+            this.nextCursor = nextCursor.apply(pageList.get(size - 1));
+        } else {
+            this.pageList = fetched;
+        }
+        this.total = total;
+    }
+
+    @JsonProperty
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    @JsonProperty("pageList")
+    public List<T> getPageList() {
+        return pageList;
+    }
+}
@@ -13,35 +13,43 @@ public class PagedList<T> {
     private int size;
     private int start;
     private int end;
-    private List<T> original;
+    private int total;
     @JsonProperty("size")
     @JsonSerialize(using = ListSizeSerializer.class)
     private List<T> pageList;
 
     public PagedList(List<T> original, int page, int size) {
+        this(original, original.size(), page, size);
+    }
+
+    /**
+     * Pages over a list that holds only the leading items of a larger result of {@code total} items. The prefix
+     * must contain at least the items up to the end of the requested page (or all of them, if fewer).
+     */
+    public PagedList(List<T> prefix, int total, int page, int size) {
         if (page < 1 || size < 1) {
             throw new IllegalArgumentException("invalid page number");
         }
         this.page = page;
         this.size = size;
-        this.original = original;
-        this.start = (page - 1) * size;
-        this.end = Math.min(start + size, original.size());
-        if (this.start >= original.size()) {
+        this.total = total;
+        this.start = (int) Math.min((long) (page - 1) * size, total);
+        this.end = (int) Math.min((long) start + size, total);
+        if (this.start >= prefix.size()) {
             this.pageList = Collections.emptyList();
         } else {
-            this.pageList = original.subList(start, end);
+            this.pageList = prefix.subList(start, Math.min(end, prefix.size()));
         }
     }
 
     @JsonProperty
     public boolean hasNext() {
-        return end < original.size();
+        return end < total;
     }
 
     @JsonProperty
     public int totalPages() {
-        return (int) Math.ceil((double) original.size() / size);
+        return (int) Math.ceil((double) total / size);
     }
 
     @JsonProperty("pageList")
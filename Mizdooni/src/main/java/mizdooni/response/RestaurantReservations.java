@@ -0,0 +1,53 @@
+package mizdooni.response;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import mizdooni.model.Reservation;
+import mizdooni.model.Table;
+import mizdooni.response.serializer.RestaurantReservationsSerializer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The reservations of all tables of a restaurant for the days from {@code from} to {@code to}, both included,
+ * grouped by table. Every table of the restaurant is listed, with an empty list if it has no reservations.
+ * <p>
+ * The reservations come in as one list for the whole restaurant, from a single storage range query, and are
+ * grouped here. Querying the storage per table would scan the restaurant's range once per table on engines
+ * that key reservations by restaurant and time.
+ */
+@JsonSerialize(using = RestaurantReservationsSerializer.class)
+public class RestaurantReservations {
+    private final List<Table> tables;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Map<Integer, List<Reservation>> byTable = new HashMap<>();
+
+    public RestaurantReservations(List<Table> tables, LocalDate from, LocalDate to, List<Reservation> reservations) {
+        this.tables = List.copyOf(tables);
+        this.from = from;
+        this.to = to;
+        for (Reservation reservation : reservations) {
+            byTable.computeIfAbsent(reservation.getTable().getTableNumber(), k -> new ArrayList<>()).add(reservation);
+        }
+    }
+
+    public List<Table> getTables() {
+        return tables;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public List<Reservation> getReservations(Table table) {
+        return byTable.getOrDefault(table.getTableNumber(), List.of());
+    }
+}
@@ -0,0 +1,33 @@
+package mizdooni.response.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import mizdooni.model.Reservation;
+import mizdooni.model.Table;
+import mizdooni.response.RestaurantReservations;
+
+import java.io.IOException;
+
+/**
+ * Writes one entry per table, with its number, seats and reservations.
+ */
+public class RestaurantReservationsSerializer extends JsonSerializer<RestaurantReservations> {
+    @Override
+    public void serialize(RestaurantReservations reservations, JsonGenerator gen, SerializerProvider serializers)
+            throws IOException {
+        gen.writeStartArray();
+        for (Table table : reservations.getTables()) {
+            gen.writeStartObject();
+            gen.writeNumberField("tableNumber", table.getTableNumber());
+            gen.writeNumberField("seatsNumber", table.getSeatsNumber());
+            gen.writeArrayFieldStart("reservations");
+            for (Reservation reservation : reservations.getReservations(table)) {
+                serializers.defaultSerializeValue(reservation, gen);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+}
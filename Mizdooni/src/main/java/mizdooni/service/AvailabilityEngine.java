@@ -0,0 +1,36 @@
+package mizdooni.service;
+
+import mizdooni.model.Restaurant;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes free reservation times from the restaurant's {@link mizdooni.model.Occupancy}. A day is an
+ * {@code int} whose bit {@code i} stands for the slot starting at {@code i:00}.
+ */
+class AvailabilityEngine {
+    static int openHours(Restaurant restaurant) {
+        int start = restaurant.getStartTime().getHour();
+        int end = restaurant.getEndTime().getHour();
+        if (end < start) {
+            return 0;
+        }
+        return (int) (((1L << (end + 1)) - 1) & ~((1L << start) - 1));
+    }
+
+    static int freeHours(Restaurant restaurant, int people, LocalDate date) {
+        return openHours(restaurant) & restaurant.getOccupancy().freeHours(date, people);
+    }
+
+    static List<LocalTime> toTimes(int hours) {
+        List<LocalTime> times = new ArrayList<>(Integer.bitCount(hours));
+        while (hours != 0) {
+            times.add(LocalTime.of(Integer.numberOfTrailingZeros(hours), 0));
+            hours &= hours - 1;
+        }
+        return times;
+    }
+}
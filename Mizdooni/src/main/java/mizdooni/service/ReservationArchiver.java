@@ -0,0 +1,73 @@
+package mizdooni.service;
+
+import jakarta.annotation.PreDestroy;
+import mizdooni.database.Database;
+import mizdooni.model.Restaurant;
+import mizdooni.model.Table;
+import mizdooni.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves reservations from before today out of the reservation store into compressed archive blocks, at startup
+ * and then every {@code mizdooni.archive.interval-minutes}. Tables and users keep returning archived reservations
+ * along with the current ones.
+ */
+@Component
+public class ReservationArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(ReservationArchiver.class);
+
+    private final Database db;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public ReservationArchiver(Database db, @Value("${mizdooni.archive.interval-minutes:60}") long intervalMinutes) {
+        this.db = db;
+        if (intervalMinutes > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "reservation-archiver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::scheduledArchive, 0, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Archives the reservations of every table and user that start before {@code cutoff}.
+     */
+    public void archiveBefore(LocalDateTime cutoff) {
+        for (Restaurant restaurant : db.getRestaurants()) {
+            for (Table table : restaurant.getTables()) {
+                table.archiveBefore(cutoff);
+            }
+        }
+        for (User user : db.getUsers()) {
+            user.archiveBefore(cutoff);
+        }
+    }
+
+    private void scheduledArchive() {
+        try {
+            archiveBefore(LocalDate.now().atStartOfDay());
+        } catch (RuntimeException e) {
+            logger.error("archiving reservations failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
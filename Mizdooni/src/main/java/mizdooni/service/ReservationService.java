@@ -6,17 +6,17 @@ import mizdooni.model.Reservation;
 import mizdooni.model.Restaurant;
 import mizdooni.model.Table;
 import mizdooni.model.User;
+import mizdooni.response.RestaurantReservations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 public class ReservationService {
@@ -27,7 +27,58 @@ public class ReservationService {
 
     public List<Reservation> getReservations(int restaurantId, int tableNumber, LocalDate date)
             throws RestaurantNotFound, UserNotManager, InvalidManagerRestaurant, TableNotFound {
-        Restaurant restaurant = ServiceUtils.findRestaurant(restaurantId, db.restaurants);
+        Table table = getManagedTable(restaurantId, tableNumber);
+        if (date == null) {
+            return table.getReservations();
+        }
+        return db.findReservations(restaurantId, tableNumber, date.atStartOfDay(), endOf(date));
+    }
+
+    /**
+     * Reservations of a table for the days from {@code from} to {@code to}, both included, in time order.
+     */
+    public List<Reservation> getReservations(int restaurantId, int tableNumber, LocalDate from, LocalDate to)
+            throws RestaurantNotFound, UserNotManager, InvalidManagerRestaurant, TableNotFound, InvalidDateRange {
+        getManagedTable(restaurantId, tableNumber);
+        if (from.isAfter(to)) {
+            throw new InvalidDateRange();
+        }
+        return db.findReservations(restaurantId, tableNumber, from.atStartOfDay(), endOf(to));
+    }
+
+    /**
+     * Reservations of every table of a restaurant for the days from {@code from} to {@code to}, both included,
+     * read with one storage query and grouped by table.
+     */
+    public RestaurantReservations getRestaurantReservations(int restaurantId, LocalDate from, LocalDate to)
+            throws RestaurantNotFound, UserNotManager, InvalidManagerRestaurant, InvalidDateRange {
+        Restaurant restaurant = getManagedRestaurant(restaurantId);
+        if (from.isAfter(to)) {
+            throw new InvalidDateRange();
+        }
+        return new RestaurantReservations(restaurant.getTables(), from, to,
+                db.findReservations(restaurantId, from.atStartOfDay(), endOf(to)));
+    }
+
+    /**
+     * The start of the day after {@code date}, the exclusive end of a storage range covering {@code date}.
+     */
+    private static LocalDateTime endOf(LocalDate date) {
+        return date.equals(LocalDate.MAX) ? LocalDateTime.MAX : date.plusDays(1).atStartOfDay();
+    }
+
+    private Table getManagedTable(int restaurantId, int tableNumber)
+            throws RestaurantNotFound, UserNotManager, InvalidManagerRestaurant, TableNotFound {
+        Table table = getManagedRestaurant(restaurantId).getTable(tableNumber);
+        if (table == null) {
+            throw new TableNotFound();
+        }
+        return table;
+    }
+
+    private Restaurant getManagedRestaurant(int restaurantId)
+            throws RestaurantNotFound, UserNotManager, InvalidManagerRestaurant {
+        Restaurant restaurant = db.findRestaurant(restaurantId);
         if (restaurant == null) {
             throw new RestaurantNotFound();
         }
@@ -39,17 +90,7 @@ public class ReservationService {
         if (!restaurant.getManager().equals(manager)) {
             throw new InvalidManagerRestaurant();
         }
-
-        Table table = restaurant.getTable(tableNumber);
-        if (table == null) {
-            throw new TableNotFound();
-        }
-
-        List<Reservation> reservations = table.getReservations();
-        if (date != null) {
-            reservations = reservations.stream().filter(reservation -> reservation.getDateTime().toLocalDate().equals(date)).toList();
-        }
-        return reservations;
+        return restaurant;
     }
 
     public List<Reservation> getCustomerReservations(int customerId) throws UserNotFound, UserNoAccess {
@@ -65,7 +106,7 @@ public class ReservationService {
 
     public List<LocalTime> getAvailableTimes(int restaurantId, int people, LocalDate date)
             throws RestaurantNotFound, DateTimeInThePast, BadPeopleNumber {
-        Restaurant restaurant = ServiceUtils.findRestaurant(restaurantId, db.restaurants);
+        Restaurant restaurant = db.findRestaurant(restaurantId);
         if (restaurant == null) {
             throw new RestaurantNotFound();
         }
@@ -77,12 +118,39 @@ public class ReservationService {
             throw new BadPeopleNumber();
         }
 
-        Set<LocalTime> availableTimes = restaurant.getTables().stream()
-                .filter(table -> table.getSeatsNumber() >= people)
-                .flatMap(table -> getAvailableTableTimes(table, date, restaurant).stream())
-                .collect(Collectors.toSet());
+        return AvailabilityEngine.toTimes(AvailabilityEngine.freeHours(restaurant, people, date));
+    }
 
-        return availableTimes.stream().sorted().toList();
+    /**
+     * Free times for {@code people} on each day from {@code from} to {@code to}, both included, in date order. The
+     * range may span at most {@value ServiceUtils#CALENDAR_MAX_DAYS} days.
+     */
+    public Map<LocalDate, List<LocalTime>> getAvailabilityCalendar(int restaurantId, int people, LocalDate from,
+                                                                  LocalDate to)
+            throws RestaurantNotFound, DateTimeInThePast, BadPeopleNumber, InvalidDateRange {
+        Restaurant restaurant = db.findRestaurant(restaurantId);
+        if (restaurant == null) {
+            throw new RestaurantNotFound();
+        }
+
+        if (from.isBefore(LocalDate.now())) {
+            throw new DateTimeInThePast();
+        }
+        if (from.isAfter(to)) {
+            throw new InvalidDateRange();
+        }
+        if (!to.isBefore(from.plusDays(ServiceUtils.CALENDAR_MAX_DAYS))) {
+            throw new InvalidDateRange("Date range is longer than " + ServiceUtils.CALENDAR_MAX_DAYS + " days.");
+        }
+        if (people <= 0) {
+            throw new BadPeopleNumber();
+        }
+
+        Map<LocalDate, List<LocalTime>> calendar = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            calendar.put(date, AvailabilityEngine.toTimes(AvailabilityEngine.freeHours(restaurant, people, date)));
+        }
+        return calendar;
     }
 
     public Reservation reserveTable(int restaurantId, int people, LocalDateTime datetime)
@@ -103,7 +171,7 @@ public class ReservationService {
             throw new DateTimeInThePast();
         }
 
-        Restaurant restaurant = ServiceUtils.findRestaurant(restaurantId, db.restaurants);
+        Restaurant restaurant = db.findRestaurant(restaurantId);
         if (restaurant == null) {
             throw new RestaurantNotFound();
         }
@@ -112,15 +180,15 @@ public class ReservationService {
             throw new ReservationNotInOpenTimes();
         }
 
-        Table table = findAvailableTable(restaurant, people, datetime);
-        if (table == null) {
-            throw new TableNotFound();
+        int reservationNumber = user.nextReservationNumber();
+        for (Table table : findCandidateTables(restaurant, people)) {
+            Reservation reservation = new Reservation(user, restaurant, table, datetime);
+            reservation.setReservationNumber(reservationNumber);
+            if (db.addReservation(reservation)) {
+                return reservation;
+            }
         }
-
-        Reservation reservation = new Reservation(user, restaurant, table, datetime);
-        user.addReservation(reservation);
-        table.addReservation(reservation);
-        return reservation;
+        throw new TableNotFound();
     }
 
     public void cancelReservation(int reservationNumber) throws UserNotFound, ReservationNotFound, ReservationCannotBeCancelled {
@@ -138,32 +206,13 @@ public class ReservationService {
             throw new ReservationCannotBeCancelled();
         }
 
-        reservation.cancel();
-    }
-
-    private List<LocalTime> getAvailableTableTimes(Table table, LocalDate date, Restaurant restaurant) {
-        Set<LocalTime> reserves = table.getReservations().stream()
-                .filter(r -> r.getDateTime().toLocalDate().equals(date) && !r.isCancelled())
-                .map(r -> r.getDateTime().toLocalTime())
-                .collect(Collectors.toSet());
-
-        List<LocalTime> availableTimes = new ArrayList<>();
-        int startTime = restaurant.getStartTime().getHour();
-        int endTime = restaurant.getEndTime().getHour();
-
-        for (int i = startTime; i <= endTime; i++) {
-            LocalTime time = LocalTime.of(i, 0);
-            if (!reserves.contains(time)) {
-                availableTimes.add(time);
-            }
-        }
-        return availableTimes;
+        db.cancelReservation(reservation);
     }
 
-    private Table findAvailableTable(Restaurant restaurant, int people, LocalDateTime datetime) {
+    private List<Table> findCandidateTables(Restaurant restaurant, int people) {
         return restaurant.getTables().stream()
-                .filter(table -> table.getSeatsNumber() >= people && !table.isReserved(datetime))
-                .min(Comparator.comparingInt(Table::getSeatsNumber))
-                .orElse(null);
+                .filter(table -> table.getSeatsNumber() >= people)
+                .sorted(Comparator.comparingInt(Table::getSeatsNumber))
+                .toList();
     }
 }
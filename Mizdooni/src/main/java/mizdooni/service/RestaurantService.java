@@ -8,6 +8,8 @@ import mizdooni.model.Address;
 import mizdooni.model.Restaurant;
 import mizdooni.model.RestaurantSearchFilter;
 import mizdooni.model.User;
+import mizdooni.response.Cursor;
+import mizdooni.response.CursorPage;
 import mizdooni.response.PagedList;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -16,29 +18,84 @@ import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 public class RestaurantService {
+    private static final String UNSORTED_CURSOR = "o";
+    private static final String SORTED_CURSOR = "s";
+
     @Autowired
     private Database db;
     @Autowired
     private UserService userService;
 
     public Restaurant getRestaurant(int restaurantId) {
-        return ServiceUtils.findRestaurant(restaurantId, db.restaurants);
+        return db.findRestaurant(restaurantId);
     }
 
     public PagedList<Restaurant> getRestaurants(int page, RestaurantSearchFilter filter) {
-        List<Restaurant> restaurants = db.restaurants;
-        if (filter != null) {
-            restaurants = filter.filter(restaurants);
+        if (filter == null) {
+            return new PagedList<>(db.searchRestaurants(null, null, null), page, ServiceUtils.RESTAURANT_PAGE_SIZE);
+        }
+        int needed = (int) Math.min((long) Math.max(page, 1) * ServiceUtils.RESTAURANT_PAGE_SIZE, Integer.MAX_VALUE);
+
+        if (!filter.hasCriteria()) {
+            List<Restaurant> top = db.topRestaurants(filter.getSort(), filter.isAscending(), needed);
+            if (top != null) {
+                return new PagedList<>(top, db.restaurantCount(), page, ServiceUtils.RESTAURANT_PAGE_SIZE);
+            }
+        }
+
+        List<Restaurant> restaurants = db.searchRestaurants(filter.getName(), filter.getType(), filter.getLocation());
+        List<Restaurant> top = filter.sort(restaurants, needed);
+        return new PagedList<>(top, restaurants.size(), page, ServiceUtils.RESTAURANT_PAGE_SIZE);
+    }
+
+    /**
+     * Cursor-paged variant of {@link #getRestaurants(int, RestaurantSearchFilter)}: each page seeks past the
+     * last restaurant of the previous one, so deep pages cost the same as the first.
+     */
+    public CursorPage<Restaurant> getRestaurants(String cursor, RestaurantSearchFilter filter, boolean withTotal) {
+        if (filter == null) {
+            filter = new RestaurantSearchFilter();
+        }
+        String name = filter.getName();
+        String type = filter.getType();
+        String city = filter.getLocation();
+        int fetch = ServiceUtils.RESTAURANT_PAGE_SIZE + 1;
+        Integer total = withTotal ? db.countRestaurants(name, type, city) : null;
+
+        if (!filter.isSorted()) {
+            String[] key = Cursor.decode(cursor, UNSORTED_CURSOR, 1);
+            int after = key == null ? -1 : (int) Cursor.decodeLong(key[0]);
+            List<Restaurant> restaurants = db.searchRestaurantsAfter(name, type, city, after, fetch);
+            return new CursorPage<>(restaurants, ServiceUtils.RESTAURANT_PAGE_SIZE,
+                    r -> Cursor.encode(UNSORTED_CURSOR, db.restaurantOrdinal(r)), total);
+        }
+
+        String[] key = Cursor.decode(cursor, SORTED_CURSOR, 4);
+        if (key != null && (!key[0].equals(filter.getSort()) || Boolean.parseBoolean(key[1]) != filter.isAscending())) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+        List<Restaurant> restaurants;
+        if (key == null) {
+            restaurants = filter.hasCriteria()
+                    ? filter.sort(db.searchRestaurants(name, type, city), fetch)
+                    : db.topRestaurants(filter.getSort(), filter.isAscending(), fetch);
+        } else {
+            double score = Cursor.decodeDouble(key[2]);
+            int id = (int) Cursor.decodeLong(key[3]);
+            restaurants = filter.hasCriteria()
+                    ? filter.sortAfter(db.searchRestaurants(name, type, city), score, id, fetch)
+                    : db.topRestaurantsAfter(filter.getSort(), filter.isAscending(), score, id, fetch);
         }
-        return new PagedList<>(restaurants, page, ServiceUtils.RESTAURANT_PAGE_SIZE);
+        RestaurantSearchFilter order = filter;
+        return new CursorPage<>(restaurants, ServiceUtils.RESTAURANT_PAGE_SIZE,
+                r -> Cursor.encode(SORTED_CURSOR, order.getSort(), order.isAscending(), order.score(r), r.getId()), total);
     }
 
     public List<Restaurant> getManagerRestaurants(int managerId) {
-        return db.restaurants.stream().filter(r -> r.getManager().getId() == managerId).collect(Collectors.toList());
+        return db.findManagerRestaurants(managerId);
     }
 
     public int addRestaurant(String name, String type, LocalTime startTime, LocalTime endTime, String description,
@@ -57,20 +114,19 @@ public class RestaurantService {
         }
 
         Restaurant restaurant = new Restaurant(name, manager, type, startTime, endTime, description, address, imageLink);
-        db.restaurants.add(restaurant);
+        db.addRestaurant(restaurant);
         return restaurant.getId();
     }
 
     public boolean restaurantExists(String name) {
-        return db.restaurants.stream().anyMatch(r -> r.getName().equals(name));
+        return db.findRestaurantByName(name) != null;
     }
 
     public Set<String> getRestaurantTypes() {
-        return db.restaurants.stream().map(Restaurant::getType).collect(Collectors.toSet());
+        return db.getRestaurantTypes();
     }
 
     public Map<String, Set<String>> getRestaurantLocations() {
-        return db.restaurants.stream().collect(Collectors.groupingBy(r -> r.getAddress().getCountry(),
-                Collectors.mapping(r -> r.getAddress().getCity(), Collectors.toSet())));
+        return db.getRestaurantLocations();
     }
 }
@@ -6,21 +6,26 @@ import mizdooni.model.Rating;
 import mizdooni.model.Restaurant;
 import mizdooni.model.Review;
 import mizdooni.model.User;
+import mizdooni.response.Cursor;
+import mizdooni.response.CursorPage;
 import mizdooni.response.PagedList;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class ReviewService {
+    private static final String REVIEW_CURSOR = "v";
+
     @Autowired
     private Database db;
     @Autowired
     private UserService userService;
 
     public PagedList<Review> getReviews(int restaurantId, int page) throws RestaurantNotFound {
-        Restaurant restaurant = ServiceUtils.findRestaurant(restaurantId, db.restaurants);
+        Restaurant restaurant = db.findRestaurant(restaurantId);
         if (restaurant == null) {
             throw new RestaurantNotFound();
         }
@@ -28,6 +33,23 @@ public class ReviewService {
         return reviews;
     }
 
+    /**
+     * Cursor-paged variant of {@link #getReviews(int, int)}: each page seeks past the last review of the
+     * previous one, so deep pages cost the same as the first.
+     */
+    public CursorPage<Review> getReviews(int restaurantId, String cursor, boolean withTotal) throws RestaurantNotFound {
+        Restaurant restaurant = db.findRestaurant(restaurantId);
+        if (restaurant == null) {
+            throw new RestaurantNotFound();
+        }
+        String[] key = Cursor.decode(cursor, REVIEW_CURSOR, 1);
+        long after = key == null ? -1 : Cursor.decodeLong(key[0]);
+        List<Review> reviews = db.findReviewsAfter(restaurantId, after, ServiceUtils.REVIEW_PAGE_SIZE + 1);
+        Integer total = withTotal ? restaurant.getReviewCount() : null;
+        return new CursorPage<>(reviews, ServiceUtils.REVIEW_PAGE_SIZE,
+                r -> Cursor.encode(REVIEW_CURSOR, r.getSequence()), total);
+    }
+
     public void addReview(int restaurantId, Rating rating, String comment)
             throws UserNotFound, ManagerCannotReview, RestaurantNotFound, InvalidReviewRating, UserHasNotReserved {
         User user = userService.getCurrentUser();
@@ -38,7 +60,7 @@ public class ReviewService {
             throw new ManagerCannotReview();
         }
 
-        Restaurant restaurant = ServiceUtils.findRestaurant(restaurantId, db.restaurants);
+        Restaurant restaurant = db.findRestaurant(restaurantId);
         if (restaurant == null) {
             throw new RestaurantNotFound();
         }
@@ -60,6 +82,6 @@ public class ReviewService {
         }
 
         Review review = new Review(user, rating, comment, LocalDateTime.now());
-        restaurant.addReview(review);
+        db.addReview(restaurant, review);
     }
 }
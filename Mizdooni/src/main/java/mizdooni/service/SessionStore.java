@@ -0,0 +1,93 @@
+package mizdooni.service;
+
+import mizdooni.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Logged-in sessions keyed by an opaque random token. Sessions expire after a period of inactivity; expired
+ * entries are dropped when looked up and swept periodically as new sessions are created.
+ */
+@Component
+public class SessionStore {
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger createdSinceSweep = new AtomicInteger();
+    private final SecureRandom random = new SecureRandom();
+    private final long timeoutMillis;
+    private final Clock clock;
+
+    @Autowired
+    public SessionStore(@Value("${mizdooni.session.timeout-minutes:30}") long timeoutMinutes) {
+        this(Duration.ofMinutes(timeoutMinutes), Clock.systemUTC());
+    }
+
+    SessionStore(Duration timeout, Clock clock) {
+        this.timeoutMillis = timeout.toMillis();
+        this.clock = clock;
+    }
+
+    public String create(User user) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user, clock.millis() + timeoutMillis));
+        if (createdSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+            createdSinceSweep.set(0);
+            sweep();
+        }
+        return token;
+    }
+
+    public User find(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = clock.millis();
+        if (session.expiresAt <= now) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.expiresAt = now + timeoutMillis;
+        return session.user;
+    }
+
+    public void invalidate(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    void sweep() {
+        long now = clock.millis();
+        sessions.values().removeIf(session -> session.expiresAt <= now);
+    }
+
+    private static class Session {
+        private final User user;
+        private volatile long expiresAt;
+
+        Session(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
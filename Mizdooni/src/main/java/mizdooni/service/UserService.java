@@ -1,5 +1,7 @@
 package mizdooni.service;
 
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
 import mizdooni.database.Database;
 import mizdooni.exceptions.DuplicatedUsernameEmail;
 import mizdooni.exceptions.InvalidEmailFormat;
@@ -8,21 +10,51 @@ import mizdooni.model.Address;
 import mizdooni.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 @Service
 public class UserService {
+    public static final String SESSION_COOKIE = "MIZDOONI_SESSION";
+    public static final String SESSION_HEADER = "X-Session-Token";
+    private static final String CURRENT_USER_ATTRIBUTE = UserService.class.getName() + ".currentUser";
+    private static final String SESSION_TOKEN_ATTRIBUTE = UserService.class.getName() + ".sessionToken";
+
     @Autowired
     private Database db;
-    private User currentUser = null;
+    @Autowired
+    private SessionStore sessions;
 
+    /**
+     * Returns the user of the session the current request was authenticated with, or null when the request
+     * carries no valid session.
+     */
     public User getCurrentUser() {
-        return currentUser;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return (User) attributes.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * Resolves the session token sent with the current request and binds its user to the request.
+     */
+    public User authenticate(String token) {
+        User user = sessions.find(token);
+        if (user != null) {
+            bindSession(user, token);
+        }
+        return user;
     }
 
     public boolean login(String username, String password) {
-        User user = db.users.stream().filter(u -> u.getUsername().equals(username)).findFirst().orElse(null);
+        User user = db.findUserByUsername(username);
         if (user != null && user.checkPassword(password)) {
-            currentUser = user;
+            String token = sessions.create(user);
+            bindSession(user, token);
+            writeSessionCookie(token, -1);
             return true;
         }
         return false;
@@ -36,27 +68,57 @@ public class UserService {
         if (!ServiceUtils.validateEmail(email)) {
             throw new InvalidEmailFormat();
         }
-        if (ServiceUtils.userIsTaken(username, email, db.users)) {
+        if (usernameExists(username) || emailExists(email)) {
             throw new DuplicatedUsernameEmail();
         }
 
         User user = new User(username, password, email, address, role);
-        db.users.add(user);
+        db.addUser(user);
     }
 
     public boolean logout() {
-        if (currentUser != null) {
-            currentUser = null;
-            return true;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null || getCurrentUser() == null) {
+            return false;
         }
-        return false;
+        sessions.invalidate((String) attributes.getAttribute(SESSION_TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+        attributes.removeAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        attributes.removeAttribute(SESSION_TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        writeSessionCookie("", 0);
+        return true;
     }
 
     public boolean usernameExists(String username) {
-        return db.users.stream().anyMatch(u -> u.getUsername().equals(username));
+        return db.findUserByUsername(username) != null;
     }
 
     public boolean emailExists(String email) {
-        return db.users.stream().anyMatch(u -> u.getEmail().equals(email));
+        return db.findUserByEmail(email) != null;
+    }
+
+    private void bindSession(User user, String token) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+            attributes.setAttribute(SESSION_TOKEN_ATTRIBUTE, token, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private void writeSessionCookie(String token, int maxAge) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        HttpServletResponse response = attributes.getResponse();
+        if (response == null) {
+            return;
+        }
+        Cookie cookie = new Cookie(SESSION_COOKIE, token);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(maxAge);
+        response.addCookie(cookie);
+        if (!token.isEmpty()) {
+            response.setHeader(SESSION_HEADER, token);
+        }
     }
 }
@@ -11,18 +11,20 @@ import org.mockito.Mock;
 import org.mockito.InjectMocks;
 
 import static mizdooni.controllers.ControllerUtils.DATE_FORMATTER;
-import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
-import static org.junit.Assert.fail;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 @ExtendWith(MockitoExtension.class)
 public class ReservationControllerTest {
@@ -155,6 +157,73 @@ public class ReservationControllerTest {
         }
     }
 
+    @Test
+    void getReservations_When_InvalidDateRangeBound_Then_ParameterBadType() {
+        stub_set_up_existing_restaurant();
+        ResponseException exception = assertThrows(ResponseException.class, () -> {
+            reservationController.getReservations(existing_restaurant_id(), existing_table_id(), a_valid_date(), "invalid date");
+        });
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("bad parameter type", exception.getMessage());
+    }
+
+    @Test
+    void getReservations_When_ValidDateRange_Then_success() {
+        try {
+            stub_set_up_existing_restaurant();
+            List<Reservation> reservations = new ArrayList<>(List.of(mockReservation));
+            when(reservationService.getReservations(anyInt(), anyInt(), any(), any())).thenReturn(reservations);
+            LocalDate from = LocalDate.parse(a_valid_date(), DATE_FORMATTER);
+            Response response = reservationController.getReservations(existing_restaurant_id(), existing_table_id(),
+                    a_valid_date(), from.plusDays(6).format(DATE_FORMATTER));
+
+            assertEquals(HttpStatus.OK, response.getStatus());
+            assertEquals("restaurant table reservations", response.getMessage());
+            assertEquals(reservations, response.getData());
+            verify(reservationService).getReservations(existing_restaurant_id(), existing_table_id(), from, from.plusDays(6));
+        } catch (Throwable e) {
+            fail();
+        }
+    }
+
+    @Test
+    void getRestaurantReservations_When_ValidDateRange_Then_success() {
+        try {
+            stub_set_up_existing_restaurant();
+            LocalDate from = LocalDate.parse(a_valid_date(), DATE_FORMATTER);
+            RestaurantReservations reservations = new RestaurantReservations(List.of(), from, from, List.of());
+            when(reservationService.getRestaurantReservations(anyInt(), any(), any())).thenReturn(reservations);
+            Response response = reservationController.getRestaurantReservations(existing_restaurant_id(), a_valid_date(),
+                    a_valid_date());
+
+            assertEquals(HttpStatus.OK, response.getStatus());
+            assertEquals("restaurant reservations", response.getMessage());
+            assertEquals(reservations, response.getData());
+            verify(reservationService).getRestaurantReservations(existing_restaurant_id(), from, from);
+        } catch (Throwable e) {
+            fail();
+        }
+    }
+
+    @Test
+    void getAvailabilityCalendar_When_ValidRange_Then_success() {
+        try {
+            stub_set_up_existing_restaurant();
+            LocalDate from = LocalDate.parse(a_valid_date(), DATE_FORMATTER);
+            Map<LocalDate, List<LocalTime>> calendar = Map.of(from, List.of(LocalTime.of(12, 0)));
+            when(reservationService.getAvailabilityCalendar(anyInt(), anyInt(), any(), any())).thenReturn(calendar);
+            Response response = reservationController.getAvailabilityCalendar(existing_restaurant_id(), 2,
+                    a_valid_date(), a_valid_date());
+
+            assertEquals(HttpStatus.OK, response.getStatus());
+            assertEquals("available times", response.getMessage());
+            assertEquals(calendar, response.getData());
+            verify(reservationService).getAvailabilityCalendar(existing_restaurant_id(), 2, from, from);
+        } catch (Throwable e) {
+            fail();
+        }
+    }
+
     @Test
     void getCustomerReservations_When_ValidCustomer_Then_success()
     {
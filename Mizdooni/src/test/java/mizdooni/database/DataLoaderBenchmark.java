@@ -0,0 +1,133 @@
+package mizdooni.database;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Startup-time benchmark for {@link DataLoader} and {@link Snapshot}: generates data sets of growing size and
+ * reports the time to load them from the data files and to restore them from a snapshot, per row, which should
+ * stay flat as the data grows. Run the main method; it is not part of the test suite.
+ */
+public class DataLoaderBenchmark {
+    private static final int[] USER_COUNTS = {10_000, 20_000, 40_000, 80_000, 160_000};
+
+    public static void main(String[] args) throws IOException {
+        // warm up the JIT on the smallest data set
+        for (int i = 0; i < 3; i++) {
+            load(USER_COUNTS[0]);
+        }
+        System.out.printf("%10s %10s %10s %12s %12s %14s%n", "users", "rows", "load ms", "load ns/row",
+                "restore ms", "restore ns/row");
+        for (int users : USER_COUNTS) {
+            long[] result = load(users);
+            System.out.printf("%10d %10d %10d %12d %12d %14d%n", users, result[0], result[1] / 1_000_000,
+                    result[1] / result[0], result[2] / 1_000_000, result[2] / result[0]);
+        }
+    }
+
+    private static long[] load(int users) throws IOException {
+        Path dir = Files.createTempDirectory("mizdooni-data");
+        try {
+            Path data = Files.createDirectory(dir.resolve("data"));
+            Path state = dir.resolve("state");
+            long rows = generate(data, users);
+            long start = System.nanoTime();
+            Database db = new Database(data, state);
+            long loaded = System.nanoTime() - start;
+            db.close();
+
+            start = System.nanoTime();
+            Database restored = new Database(data, state);
+            long restoredIn = System.nanoTime() - start;
+            restored.close();
+            return new long[]{rows, loaded, restoredIn};
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Writes {@code users} users, one restaurant per ten users with four tables each, and three reviews per
+     * user. Returns the number of rows written.
+     */
+    private static long generate(Path dir, int users) throws IOException {
+        JsonFactory factory = new JsonFactory();
+        int restaurants = users / 10;
+
+        try (JsonGenerator out = factory.createGenerator(dir.resolve(JsonReader.File.USERS.toString()).toFile(), JsonEncoding.UTF8)) {
+            out.writeStartArray();
+            for (int i = 0; i < users; i++) {
+                out.writeStartObject();
+                out.writeStringField("username", "user" + i);
+                out.writeStringField("password", "pass");
+                out.writeStringField("email", "user" + i + "@example.com");
+                out.writeStringField("role", i % 10 == 0 ? "manager" : "client");
+                writeAddress(out, "Tehran", null);
+                out.writeEndObject();
+            }
+            out.writeEndArray();
+        }
+        try (JsonGenerator out = factory.createGenerator(dir.resolve(JsonReader.File.RESTAURANTS.toString()).toFile(), JsonEncoding.UTF8)) {
+            out.writeStartArray();
+            for (int i = 0; i < restaurants; i++) {
+                out.writeStartObject();
+                out.writeStringField("name", "restaurant" + i);
+                out.writeStringField("managerUsername", "user" + i * 10);
+                out.writeStringField("type", "type" + i % 20);
+                out.writeStringField("startTime", "09:00");
+                out.writeStringField("endTime", "23:00");
+                out.writeStringField("description", "description");
+                writeAddress(out, "city" + i % 30, "street");
+                out.writeNullField("image");
+                out.writeEndObject();
+            }
+            out.writeEndArray();
+        }
+        try (JsonGenerator out = factory.createGenerator(dir.resolve(JsonReader.File.TABLES.toString()).toFile(), JsonEncoding.UTF8)) {
+            out.writeStartArray();
+            for (int i = 0; i < restaurants * 4; i++) {
+                out.writeStartObject();
+                out.writeStringField("restaurantName", "restaurant" + i % restaurants);
+                out.writeNumberField("tableNumber", i / restaurants + 1);
+                out.writeNumberField("seatsNumber", 2 + i % 5);
+                out.writeEndObject();
+            }
+            out.writeEndArray();
+        }
+        try (JsonGenerator out = factory.createGenerator(dir.resolve(JsonReader.File.REVIEWS.toString()).toFile(), JsonEncoding.UTF8)) {
+            out.writeStartArray();
+            for (int i = 0; i < users * 3; i++) {
+                out.writeStartObject();
+                out.writeStringField("restaurantName", "restaurant" + (i * 7) % restaurants);
+                out.writeStringField("username", "user" + i % users);
+                out.writeNumberField("foodRate", i % 5 + 1);
+                out.writeNumberField("serviceRate", i % 4 + 1);
+                out.writeNumberField("ambianceRate", i % 3 + 1);
+                out.writeNumberField("overallRate", i % 5 + 0.5);
+                out.writeStringField("comment", "comment " + i);
+                out.writeEndObject();
+            }
+            out.writeEndArray();
+        }
+        return users + restaurants + restaurants * 4L + users * 3L;
+    }
+
+    private static void writeAddress(JsonGenerator out, String city, String street) throws IOException {
+        out.writeObjectFieldStart("address");
+        out.writeStringField("country", "Iran");
+        out.writeStringField("city", city);
+        if (street != null) {
+            out.writeStringField("street", street);
+        }
+        out.writeEndObject();
+    }
+}
@@ -0,0 +1,80 @@
+package mizdooni.database;
+
+import mizdooni.model.Restaurant;
+import mizdooni.model.Review;
+import mizdooni.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataLoaderTest {
+    @TempDir
+    Path dataDir;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Files.writeString(dataDir.resolve("users.json"), """
+                [
+                  {"username": "manager", "password": "p", "email": "m@example.com", "role": "manager",
+                   "address": {"country": "Iran", "city": "Tehran"}, "unknown": {"nested": [1, 2]}},
+                  {"username": "client", "password": "p", "email": "c@example.com", "role": "client",
+                   "address": {"country": "Iran", "city": "Shiraz"}}
+                ]""");
+        Files.writeString(dataDir.resolve("restaurants.json"), """
+                [
+                  {"name": "Burger", "managerUsername": "manager", "type": "Fast Food", "startTime": "09:00",
+                   "endTime": "22:30", "description": "desc", "image": null,
+                   "address": {"country": "Iran", "city": "Tehran", "street": "Jordan"}}
+                ]""");
+        Files.writeString(dataDir.resolve("tables.json"), """
+                [
+                  {"restaurantName": "Burger", "tableNumber": 1, "seatsNumber": 4},
+                  {"restaurantName": "Burger", "tableNumber": 2, "seatsNumber": 2},
+                  {"restaurantName": "Missing", "tableNumber": 1, "seatsNumber": 2}
+                ]""");
+        Files.writeString(dataDir.resolve("reviews.json"), """
+                [
+                  {"restaurantName": "Burger", "username": "client", "foodRate": 4.0, "serviceRate": 3.0,
+                   "ambianceRate": 2.0, "overallRate": 3.5, "comment": "good"}
+                ]""");
+    }
+
+    @Test
+    public void read_When_DataFiles_Then_EntitiesLinked() {
+        Database db = new Database(dataDir);
+
+        User manager = db.findUserByUsername("manager");
+        assertNotNull(manager);
+        assertEquals(User.Role.manager, manager.getRole());
+
+        Restaurant restaurant = db.findRestaurantByName("Burger");
+        assertEquals(manager, restaurant.getManager());
+        assertEquals(LocalTime.of(22, 30), restaurant.getEndTime());
+        assertEquals("Jordan", restaurant.getAddress().getStreet());
+        assertEquals(2, restaurant.getTables().size());
+        assertEquals(2, restaurant.getTable(2).getSeatsNumber());
+
+        Review review = restaurant.getReviews().get(0);
+        assertEquals(db.findUserByUsername("client"), review.getUser());
+        assertEquals(3.5, review.getRating().overall);
+    }
+
+    @Test
+    public void read_When_FileMissingOrMalformed_Then_Skipped() throws IOException {
+        Files.delete(dataDir.resolve("reviews.json"));
+        Files.writeString(dataDir.resolve("tables.json"), "{not json");
+
+        Database db = new Database(dataDir);
+
+        Restaurant restaurant = db.findRestaurantByName("Burger");
+        assertTrue(restaurant.getTables().isEmpty());
+        assertTrue(restaurant.getReviews().isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package mizdooni.database;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mizdooni.config.ObjectMapperConfig;
+import mizdooni.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseSerializationTest {
+    @TempDir
+    Path dir;
+
+    private AnnotationConfigApplicationContext context;
+    private ObjectMapper mapper;
+    private User client;
+    private Restaurant restaurant;
+    private Reservation reservation;
+
+    @BeforeEach
+    public void setup() {
+        // the same ObjectMapper the application gets, with the mixins picked up by package scan
+        context = new AnnotationConfigApplicationContext();
+        AutoConfigurationPackages.register(context, "mizdooni");
+        context.register(JacksonAutoConfiguration.class, ObjectMapperConfig.class);
+        context.refresh();
+        mapper = context.getBean(ObjectMapper.class);
+
+        Database db = new Database(dir.resolve("data"), dir.resolve("state"));
+        User manager = new User("manager", "secret", "m@example.com", new Address("Iran", "Tehran", null), User.Role.manager);
+        client = new User("client", "pass", "c@example.com", new Address("Iran", "Shiraz", null), User.Role.client);
+        db.addUser(manager);
+        db.addUser(client);
+        restaurant = new Restaurant("Burger", manager, "Fast Food", LocalTime.of(9, 0), LocalTime.of(23, 0),
+                "desc", new Address("Iran", "Tehran", "Jordan"), "image.jpg");
+        db.addRestaurant(restaurant);
+        Table table = new Table(0, restaurant.getId(), 4);
+        db.addTable(restaurant, table);
+        LocalDateTime datetime = LocalDateTime.of(LocalDate.now().plusDays(1), LocalTime.of(18, 0));
+        reservation = new Reservation(client, restaurant, table, datetime);
+        assertTrue(db.addReservation(reservation));
+    }
+
+    @AfterEach
+    public void teardown() {
+        context.close();
+    }
+
+    @Test
+    public void serialize_When_UserInDatabase_Then_StoreNotWritten() throws Exception {
+        JsonNode json = mapper.valueToTree(client);
+
+        assertEquals("client", json.get("username").asText());
+        assertEquals("client", json.get("role").asText());
+        assertFalse(json.has("password"));
+        assertFalse(json.has("reservationStore"));
+    }
+
+    @Test
+    public void serialize_When_RestaurantInDatabase_Then_StoreNotWritten() throws Exception {
+        JsonNode json = mapper.valueToTree(restaurant);
+
+        assertEquals("Burger", json.get("name").asText());
+        assertEquals("manager", json.get("managerUsername").asText());
+        assertEquals("23:00", json.get("endTime").asText());
+        assertEquals(4, json.get("maxSeatsNumber").asInt());
+        assertFalse(json.has("reservationStore"));
+    }
+
+    @Test
+    public void serialize_When_ReservationStored_Then_StoredStateWritten() throws Exception {
+        JsonNode json = mapper.valueToTree(reservation);
+
+        assertEquals(0, json.get("reservationNumber").asInt());
+        assertFalse(json.get("cancelled").asBoolean());
+        assertEquals("Burger", json.get("restaurant").get("name").asText());
+        assertEquals(1, json.get("table").get("tableNumber").asInt());
+        assertFalse(json.has("store"));
+        assertFalse(json.has("row"));
+    }
+}
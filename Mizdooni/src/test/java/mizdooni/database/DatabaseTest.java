@@ -0,0 +1,242 @@
+package mizdooni.database;
+
+import mizdooni.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseTest {
+    @TempDir
+    Path dir;
+
+    private Database open() {
+        return new Database(dir.resolve("data"), dir.resolve("state"));
+    }
+
+    private static Rating rating(double overall) {
+        Rating rating = new Rating();
+        rating.food = 3;
+        rating.service = 4;
+        rating.ambiance = 5;
+        rating.overall = overall;
+        return rating;
+    }
+
+    private static final LocalDateTime KEPT = LocalDateTime.of(LocalDate.now().plusDays(1), LocalTime.of(18, 0));
+    private static final LocalDateTime CANCELLED = KEPT.plusHours(1);
+    private static final LocalDateTime REVIEWED = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    private static void populate(Database db) {
+        User manager = new User("manager", "secret", "m@example.com", new Address("Iran", "Tehran", null), User.Role.manager);
+        User client = new User("client", "pass", "c@example.com", new Address("Iran", "Shiraz", null), User.Role.client);
+        db.addUser(manager);
+        db.addUser(client);
+        Restaurant restaurant = new Restaurant("Burger", manager, "Fast Food", LocalTime.of(9, 0), LocalTime.of(23, 0),
+                "desc", new Address("Iran", "Tehran", "Jordan"), "image.jpg");
+        db.addRestaurant(restaurant);
+        db.addTable(restaurant, new Table(0, restaurant.getId(), 4));
+        db.addTable(restaurant, new Table(0, restaurant.getId(), 2));
+        db.addReview(restaurant, new Review(client, rating(2), "first", REVIEWED));
+        db.addReview(restaurant, new Review(client, rating(4), "second", REVIEWED));
+        for (LocalDateTime datetime : new LocalDateTime[]{KEPT, CANCELLED}) {
+            Table table = restaurant.getTable(2);
+            Reservation reservation = new Reservation(client, restaurant, table, datetime);
+            assertTrue(db.addReservation(reservation));
+        }
+        Reservation toCancel = client.getReservation(1);
+        db.cancelReservation(toCancel);
+    }
+
+    private static void assertPopulated(Database db) {
+        User client = db.findUserByUsername("client");
+        assertTrue(client.checkPassword("pass"));
+        assertEquals("Shiraz", client.getAddress().getCity());
+        assertEquals(User.Role.manager, db.findUserByEmail("m@example.com").getRole());
+        assertEquals(1, db.getUsers().stream().filter(user -> user.getUsername().equals("client")).count());
+
+        Restaurant restaurant = db.findRestaurantByName("Burger");
+        assertEquals(1, db.restaurantCount());
+        assertEquals(db.findUserByUsername("manager"), restaurant.getManager());
+        assertEquals(LocalTime.of(23, 0), restaurant.getEndTime());
+        assertEquals("image.jpg", restaurant.getImageLink());
+        assertEquals("Jordan", restaurant.getAddress().getStreet());
+        assertEquals(2, restaurant.getTables().size());
+        assertEquals(2, restaurant.getTable(2).getSeatsNumber());
+
+        assertEquals(1, restaurant.getReviewCount());
+        assertEquals("second", restaurant.getReviews().get(0).getComment());
+        assertEquals(REVIEWED, restaurant.getReviews().get(0).getDatetime());
+        assertEquals(client, restaurant.getReviews().get(0).getUser());
+        assertEquals(4, restaurant.getAverageRating().overall);
+
+        Table table = restaurant.getTable(2);
+        assertTrue(table.isReserved(KEPT));
+        assertFalse(table.isReserved(CANCELLED));
+        assertEquals(2, table.getReservations().size());
+        assertEquals(KEPT, client.getReservation(0).getDateTime());
+        assertNull(client.getReservation(1));
+        assertEquals(2, client.getReservations().size());
+    }
+
+    @Test
+    public void constructor_When_CrashedWithoutSnapshot_Then_RestoredFromLog() throws IOException {
+        populate(open());
+
+        Database restarted = open();
+        assertFalse(Snapshot.exists(dir.resolve("state")));
+        assertPopulated(restarted);
+        restarted.close();
+    }
+
+    @Test
+    public void constructor_When_ClosedCleanly_Then_RestoredFromSnapshot() throws IOException {
+        Database db = open();
+        populate(db);
+        db.close();
+
+        Database restarted = open();
+        assertTrue(Snapshot.exists(dir.resolve("state")));
+        assertPopulated(restarted);
+        restarted.close();
+    }
+
+    @Test
+    public void constructor_When_LogOverlapsSnapshot_Then_NothingAppliedTwice() throws IOException {
+        Database db = open();
+        populate(db);
+        // a snapshot that claims to cover nothing of the log, as if every record raced with it
+        Snapshot.write(dir.resolve("state"), 0, db.getUsers(), db.getRestaurants());
+
+        Database restarted = open();
+        assertPopulated(restarted);
+        restarted.close();
+    }
+
+    @Test
+    public void constructor_When_LogOverlapsArchivedReservations_Then_NotReplayedAgain() throws IOException {
+        Database db = open();
+        populate(db);
+        db.findUserByUsername("client").archiveBefore(CANCELLED.plusDays(1));
+        Snapshot.write(dir.resolve("state"), 0, db.getUsers(), db.getRestaurants());
+
+        Database restarted = open();
+        assertPopulated(restarted);
+        restarted.close();
+    }
+
+    @Test
+    public void replay_When_ReviewAlreadyApplied_Then_ReviewOrderKept() throws IOException {
+        Database db = open();
+        populate(db);
+        Restaurant restaurant = db.findRestaurantByName("Burger");
+        User client = db.findUserByUsername("client");
+        Review first = new Review(client, rating(1), "old", REVIEWED.minusDays(1));
+        User late = new User("late", "pass", "l@example.com", null, User.Role.client);
+        db.addUser(late);
+        db.addReview(restaurant, new Review(late, rating(5), "late", REVIEWED));
+
+        DataLoader loader = new DataLoader(db, dir.resolve("data"));
+        loader.replay(LogRecords.REVIEW, LogRecords.review(restaurant, restaurant.getReview(client)));
+        loader.replay(LogRecords.REVIEW, LogRecords.review(restaurant, first));
+
+        assertEquals(List.of("second", "late"), restaurant.getReviews().stream().map(Review::getComment).toList());
+        db.close();
+    }
+
+    @Test
+    public void addReservation_When_SlotTaken_Then_NotBookedOrLogged() throws IOException {
+        Database db = open();
+        populate(db);
+        User client = db.findUserByUsername("client");
+        Restaurant restaurant = db.findRestaurantByName("Burger");
+        Table table = restaurant.getTable(2);
+
+        assertFalse(db.addReservation(new Reservation(client, restaurant, table, KEPT)));
+        assertPopulated(db);
+
+        Database restarted = open();
+        assertPopulated(restarted);
+        restarted.close();
+    }
+
+    @Test
+    public void addReservation_When_SlotFreedByCancellation_Then_RebookingReplayedAfterIt() throws IOException {
+        Database db = open();
+        populate(db);
+        User client = db.findUserByUsername("client");
+        Restaurant restaurant = db.findRestaurantByName("Burger");
+        Reservation rebooked = new Reservation(client, restaurant, restaurant.getTable(2), CANCELLED);
+        rebooked.setReservationNumber(client.nextReservationNumber());
+
+        assertTrue(db.addReservation(rebooked));
+
+        Database restarted = open();
+        Table table = restarted.findRestaurantByName("Burger").getTable(2);
+        assertTrue(table.isReserved(CANCELLED));
+        assertEquals(3, table.getReservations().size());
+        assertEquals(CANCELLED, restarted.findUserByUsername("client").getReservation(2).getDateTime());
+        restarted.close();
+    }
+
+    @Test
+    public void snapshot_When_ChangedAfterwards_Then_SnapshotPlusLogRestored() throws IOException {
+        Database db = open();
+        populate(db);
+        db.snapshot();
+        User late = new User("late", "pass", "l@example.com", null, User.Role.client);
+        db.addUser(late);
+        db.addReview(db.findRestaurantByName("Burger"), new Review(late, rating(5), "late", REVIEWED));
+
+        Database restarted = open();
+        assertNotNull(restarted.findUserByUsername("late"));
+        assertEquals(2, restarted.findRestaurantByName("Burger").getReviewCount());
+        restarted.close();
+    }
+
+    @Test
+    public void constructor_When_OffHeapCatalog_Then_RestaurantsReadFromSegment() throws IOException {
+        Database db = open();
+        populate(db);
+        db.close();
+
+        Database mapped = new Database(dir.resolve("data"), dir.resolve("state"), true, new MemoryStorage());
+        assertPopulated(mapped);
+        assertSame(mapped.findRestaurantByName("Burger"), mapped.searchRestaurants("Bur", "Fast Food", "Tehran").get(0));
+        mapped.close();
+
+        Database restarted = open();
+        assertPopulated(restarted);
+        restarted.close();
+    }
+
+    @Test
+    public void constructor_When_FileStorage_Then_RestoredIntoIt() throws IOException {
+        populate(open());
+
+        Database restarted = new Database(dir.resolve("data"), dir.resolve("state"), false,
+                new FileStorage(dir.resolve("storage")));
+        assertPopulated(restarted);
+        Restaurant restaurant = restarted.findRestaurantByName("Burger");
+        assertEquals(List.of(KEPT, CANCELLED), restarted.findReservations(restaurant.getId(), KEPT.minusHours(1),
+                CANCELLED.plusHours(1)).stream().map(Reservation::getDateTime).toList());
+        assertEquals("second", restarted.findReviewsAfter(restaurant.getId(), -1, 10).get(0).getComment());
+        restarted.close();
+    }
+
+    @Test
+    public void constructor_When_NoLog_Then_ChangesNotKept() throws IOException {
+        Database db = new Database(dir.resolve("data"));
+        db.addUser(new User("client", "pass", "c@example.com", null, User.Role.client));
+        db.close();
+
+        assertNull(new Database(dir.resolve("data")).findUserByUsername("client"));
+    }
+}
@@ -0,0 +1,55 @@
+package mizdooni.database;
+
+import mizdooni.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RestaurantRankingTest {
+    @Test
+    public void top_When_ScoresChangeAfterInsert_Then_MatchesStableSort() {
+        RestaurantRanking ranking = new RestaurantRanking(r -> r.getAverageRating().overall);
+        Address address = new Address("Iran", "Tehran", "street");
+        List<Restaurant> restaurants = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Restaurant restaurant = new Restaurant("restaurant " + i, null, "type", LocalTime.of(9, 0),
+                    LocalTime.of(22, 0), "", address, "");
+            restaurants.add(restaurant);
+            ranking.update(restaurant);
+            users.add(new User("user" + i, "pass", "mail@example.com", address, User.Role.client));
+        }
+
+        Random random = new Random(5);
+        for (int i = 0; i < 400; i++) {
+            Restaurant restaurant = restaurants.get(random.nextInt(restaurants.size()));
+            Rating rating = new Rating();
+            rating.overall = random.nextInt(5);
+            restaurant.addReview(new Review(users.get(random.nextInt(users.size())), rating, "", LocalDateTime.now()));
+            ranking.update(restaurant);
+        }
+
+        Comparator<Restaurant> byRating = Comparator.comparingDouble(r -> r.getAverageRating().overall);
+        List<Restaurant> ascending = new ArrayList<>(restaurants);
+        ascending.sort(byRating);
+        List<Restaurant> descending = new ArrayList<>(restaurants);
+        descending.sort(byRating.reversed());
+
+        assertEquals(50, ranking.size());
+        assertEquals(ascending, ranking.top(true, 50));
+        assertEquals(descending.subList(0, 12), ranking.top(false, 12));
+
+        Restaurant last = descending.get(11);
+        assertEquals(descending.subList(12, 24),
+                ranking.after(false, last.getAverageRating().overall, last.getId(), 12));
+        Restaurant first = ascending.get(0);
+        assertEquals(ascending.subList(1, 50), ranking.after(true, first.getAverageRating().overall, first.getId(), 50));
+    }
+}
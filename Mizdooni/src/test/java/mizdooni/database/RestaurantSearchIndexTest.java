@@ -0,0 +1,103 @@
+package mizdooni.database;
+
+import mizdooni.model.Address;
+import mizdooni.model.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RestaurantSearchIndexTest {
+    private static final String[] NAMES = {"Downtown Burger", "Burger King", "Sea Breeze", "Pasta Town", "Kebab House",
+            "Town Hall Cafe", "Sushi Bar", "Bar-B-Q"};
+    private static final String[] TYPES = {"Burger", "Sea Food", "Italian", "Persian", "Cafe"};
+    private static final String[] CITIES = {"Tehran", "Isfahan", "Shiraz"};
+
+    private RestaurantSearchIndex index;
+    private List<Restaurant> restaurants;
+
+    @BeforeEach
+    void setup() {
+        index = new RestaurantSearchIndex();
+        restaurants = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            Restaurant restaurant = new Restaurant(NAMES[random.nextInt(NAMES.length)] + " " + i, null,
+                    TYPES[random.nextInt(TYPES.length)], LocalTime.of(9, 0), LocalTime.of(22, 0), "",
+                    new Address("Iran", CITIES[random.nextInt(CITIES.length)], "street"), "");
+            restaurants.add(restaurant);
+            index.add(restaurant);
+        }
+    }
+
+    private List<Restaurant> scan(String name, String type, String city) {
+        return restaurants.stream()
+                .filter(r -> name == null || r.getName().contains(name))
+                .filter(r -> type == null || r.getType().equals(type))
+                .filter(r -> city == null || r.getAddress().getCity().equals(city))
+                .toList();
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "null, null, null",
+            "Burger, null, null",
+            "own, null, null",
+            "Bu, null, null",
+            "'', null, null",
+            "null, Cafe, null",
+            "null, null, Shiraz",
+            "Town, Italian, Tehran",
+            "Bar, null, Isfahan",
+            "Pizza, null, null",
+            "null, Fast Food, null",
+            "Sushi Bar 1, Persian, null"
+    }, nullValues = "null")
+    public void search_When_Criteria_Then_SameAsFullScan(String name, String type, String city) {
+        assertEquals(scan(name, type, city), index.search(name, type, city));
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "null, null, null",
+            "Burger, null, null",
+            "Town, Italian, Tehran",
+            "null, null, Shiraz",
+            "Pizza, null, null"
+    }, nullValues = "null")
+    public void searchAfter_When_PagedByOrdinal_Then_SameAsFullScan(String name, String type, String city) {
+        List<Restaurant> paged = new ArrayList<>();
+        int after = -1;
+        List<Restaurant> page;
+        while (!(page = index.searchAfter(name, type, city, after, 7)).isEmpty()) {
+            paged.addAll(page);
+            after = index.ordinal(page.get(page.size() - 1));
+        }
+        assertEquals(scan(name, type, city), paged);
+        assertEquals(paged.size(), index.count(name, type, city));
+    }
+
+    @Test
+    public void search_When_NoCriteria_Then_AllInInsertionOrder() {
+        assertEquals(restaurants, index.search(null, null, null));
+    }
+
+    @Test
+    public void types_When_Indexed_Then_AllDistinctTypes() {
+        assertEquals(Set.of(TYPES), index.types());
+    }
+
+    @Test
+    public void locations_When_Indexed_Then_CitiesGroupedByCountry() {
+        assertEquals(Map.of("Iran", Set.of(CITIES)), index.locations());
+    }
+}
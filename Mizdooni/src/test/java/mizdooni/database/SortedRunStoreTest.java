@@ -0,0 +1,88 @@
+package mizdooni.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedRunStoreTest {
+    @TempDir
+    Path dir;
+
+    private static byte[] key(int i) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(i).array();
+    }
+
+    private static int value(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+
+    private static List<Integer> scan(SortedRunStore store, int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        store.scan(key(from), key(to), (key, value) -> values.add(value(value)));
+        return values;
+    }
+
+    @Test
+    public void scan_When_RandomWritesAcrossFlushes_Then_SameAsTreeMap() throws IOException {
+        SortedRunStore store = SortedRunStore.open(dir, 50);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            int k = random.nextInt(1000);
+            if (random.nextInt(4) == 0) {
+                store.delete(key(k));
+                expected.remove(k);
+            } else {
+                store.put(key(k), key(i));
+                expected.put(k, i);
+            }
+        }
+
+        for (int k = 0; k < 1000; k++) {
+            byte[] value = store.get(key(k));
+            assertEquals(expected.get(k), value == null ? null : value(value));
+        }
+        assertEquals(new ArrayList<>(expected.subMap(100, 700).values()), scan(store, 100, 700));
+        assertEquals(new ArrayList<>(expected.values()), scan(store, 0, 1000));
+        store.close();
+    }
+
+    @Test
+    public void scan_When_VisitorStops_Then_NoMoreVisited() throws IOException {
+        SortedRunStore store = SortedRunStore.open(dir, 10);
+        for (int i = 0; i < 100; i++) {
+            store.put(key(i), key(i));
+        }
+        List<Integer> visited = new ArrayList<>();
+        store.scan(key(0), key(100), (key, value) -> visited.add(value(value)) && visited.size() < 5);
+
+        assertEquals(List.of(0, 1, 2, 3, 4), visited);
+        store.close();
+    }
+
+    @Test
+    public void close_When_Flushed_Then_RunFilesDeleted() throws IOException {
+        SortedRunStore store = SortedRunStore.open(dir, 10);
+        for (int i = 0; i < 100; i++) {
+            store.put(key(i), key(i));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.count() > 0);
+        }
+        store.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package mizdooni.database;
+
+import mizdooni.model.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Random;
+
+/**
+ * Compares the {@link Storage} engines: fills each with the same users, restaurants, reviews and reservations,
+ * then reports the time per write and per lookup, review page and one-day reservation scan. Run the main
+ * method; it is not part of the test suite.
+ */
+public class StorageBenchmark {
+    private static final int USERS = 50_000;
+    private static final int RESTAURANTS = 5_000;
+    private static final int REVIEWS_PER_USER = 4;
+    private static final int RESERVATIONS_PER_USER = 10;
+    private static final int QUERIES = 200_000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2030, 1, 1);
+
+    public static void main(String[] args) throws IOException {
+        System.out.printf("%8s %12s %12s %12s %12s %12s%n", "engine", "write ns", "name ns", "manager ns",
+                "reviews ns", "day ns");
+        for (int round = 0; round < 2; round++) {
+            run("memory", new MemoryStorage());
+            Path dir = Files.createTempDirectory("mizdooni-storage");
+            run("file", new FileStorage(dir));
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void run(String engine, Storage storage) throws IOException {
+        Random random = new Random(1);
+        ReservationStore reservationStore = new ReservationStore();
+        User[] users = new User[USERS];
+        Restaurant[] restaurants = new Restaurant[RESTAURANTS];
+
+        long start = System.nanoTime();
+        long writes = 0;
+        for (int i = 0; i < USERS; i++) {
+            users[i] = new User("user" + i, "pass", "user" + i + "@example.com", null,
+                    i < RESTAURANTS / 2 ? User.Role.manager : User.Role.client);
+            users[i].attachReservationStore(reservationStore);
+            storage.addUser(users[i]);
+            writes++;
+        }
+        for (int i = 0; i < RESTAURANTS; i++) {
+            restaurants[i] = new Restaurant("restaurant" + i, users[i / 2], "type", LocalTime.of(8, 0),
+                    LocalTime.of(23, 0), "", null, "");
+            restaurants[i].attachReservationStore(reservationStore);
+            storage.addRestaurant(restaurants[i]);
+            for (int t = 0; t < 4; t++) {
+                restaurants[i].addTable(new Table(0, restaurants[i].getId(), 2 + t));
+            }
+            writes++;
+        }
+        for (User user : users) {
+            for (int r = 0; r < REVIEWS_PER_USER; r++) {
+                Restaurant restaurant = restaurants[random.nextInt(RESTAURANTS)];
+                Review review = new Review(user, new Rating(), "", FIRST_DAY.atStartOfDay());
+                Review replaced = restaurant.getReview(user);
+                restaurant.addReview(review);
+                storage.addReview(restaurant, review, replaced);
+                writes++;
+            }
+            for (int r = 0; r < RESERVATIONS_PER_USER; r++) {
+                Restaurant restaurant = restaurants[random.nextInt(RESTAURANTS)];
+                Table table = restaurant.getTable(1 + random.nextInt(4));
+                Reservation reservation = new Reservation(user, restaurant, table,
+                        FIRST_DAY.plusDays(random.nextInt(365)).atTime(8 + random.nextInt(15), 0));
+                table.addReservation(reservation);
+                user.addReservation(reservation);
+                storage.putReservation(reservation);
+                writes++;
+            }
+        }
+        long writeNanos = (System.nanoTime() - start) / writes;
+
+        long sink = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            sink += storage.findUserByUsername("user" + random.nextInt(USERS)).getId();
+        }
+        long nameNanos = (System.nanoTime() - start) / QUERIES;
+
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            sink += storage.findManagerRestaurants(users[random.nextInt(RESTAURANTS / 2)].getId()).size();
+        }
+        long managerNanos = (System.nanoTime() - start) / QUERIES;
+
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            sink += storage.findReviewsAfter(restaurants[random.nextInt(RESTAURANTS)].getId(), -1, 10).size();
+        }
+        long reviewNanos = (System.nanoTime() - start) / QUERIES;
+
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            LocalDate day = FIRST_DAY.plusDays(random.nextInt(365));
+            sink += storage.findReservations(restaurants[random.nextInt(RESTAURANTS)].getId(), day.atStartOfDay(),
+                    day.plusDays(1).atStartOfDay()).size();
+        }
+        long dayNanos = (System.nanoTime() - start) / QUERIES;
+
+        storage.close();
+        if (sink == 42) {
+            System.out.println();
+        }
+        System.out.printf("%8s %12d %12d %12d %12d %12d%n", engine, writeNanos, nameNanos, managerNanos,
+                reviewNanos, dayNanos);
+    }
+}
@@ -0,0 +1,125 @@
+package mizdooni.database;
+
+import mizdooni.model.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StorageTest {
+    @TempDir
+    Path dir;
+
+    private Storage open(String engine) throws IOException {
+        // a tiny memtable so that the file engine reads most of it back from run files
+        return engine.equals("memory") ? new MemoryStorage() : new FileStorage(dir, 4);
+    }
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 1);
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memory", "file"})
+    public void find_When_Added_Then_FoundByIdAndName(String engine) throws IOException {
+        Storage storage = open(engine);
+        User manager = new User("manager", "pass", "m@example.com", null, User.Role.manager);
+        User other = new User("other", "pass", "o@example.com", null, User.Role.manager);
+        storage.addUser(manager);
+        storage.addUser(other);
+        Restaurant first = new Restaurant("First", manager, "Cafe", LocalTime.of(8, 0), LocalTime.of(22, 0), "", null, "");
+        Restaurant second = new Restaurant("Second", other, "Cafe", LocalTime.of(8, 0), LocalTime.of(22, 0), "", null, "");
+        Restaurant third = new Restaurant("Third", manager, "Cafe", LocalTime.of(8, 0), LocalTime.of(22, 0), "", null, "");
+        storage.addRestaurant(first);
+        storage.addRestaurant(second);
+        storage.addRestaurant(third);
+
+        assertSame(manager, storage.findUserByUsername("manager"));
+        assertSame(other, storage.findUserByEmail("o@example.com"));
+        assertNull(storage.findUserByUsername("nobody"));
+        assertSame(second, storage.findRestaurant(second.getId()));
+        assertSame(third, storage.findRestaurantByName("Third"));
+        assertNull(storage.findRestaurantByName("Fourth"));
+        assertEquals(List.of(first, third), storage.findManagerRestaurants(manager.getId()));
+        assertEquals(List.of(manager, other), storage.users());
+        assertEquals(3, storage.restaurantCount());
+        storage.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memory", "file"})
+    public void findReservations_When_RangeGiven_Then_OnlyThatRangeInTimeOrder(String engine) throws IOException {
+        Storage storage = open(engine);
+        ReservationStore reservationStore = new ReservationStore();
+        User client = new User("client", "pass", "c@example.com", null, User.Role.client);
+        client.attachReservationStore(reservationStore);
+        storage.addUser(client);
+        Restaurant restaurant = new Restaurant("R", null, "Cafe", LocalTime.of(8, 0), LocalTime.of(22, 0), "", null, "");
+        restaurant.attachReservationStore(reservationStore);
+        storage.addRestaurant(restaurant);
+        restaurant.addTable(new Table(0, restaurant.getId(), 4));
+        restaurant.addTable(new Table(0, restaurant.getId(), 2));
+
+        int[][] bookings = {{2, 20}, {1, 9}, {1, 20}, {2, 12}};
+        for (LocalDate day : new LocalDate[]{DAY.minusDays(1), DAY, DAY.plusDays(1)}) {
+            for (int[] booking : bookings) {
+                Table table = restaurant.getTable(booking[0]);
+                Reservation reservation = new Reservation(client, restaurant, table, day.atTime(booking[1], 0));
+                table.addReservation(reservation);
+                client.addReservation(reservation);
+                storage.putReservation(reservation);
+            }
+        }
+        Reservation cancelled = client.getReservation(5);
+        cancelled.cancel();
+        storage.putReservation(cancelled);
+
+        List<Reservation> found = storage.findReservations(restaurant.getId(), DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+        assertEquals(List.of(9, 12, 20, 20), found.stream().map(r -> r.getDateTime().getHour()).toList());
+        assertTrue(found.stream().allMatch(r -> r.getDateTime().toLocalDate().equals(DAY)));
+        Reservation nine = found.get(0);
+        assertEquals(5, nine.getReservationNumber());
+        assertTrue(nine.isCancelled());
+        assertSame(restaurant.getTable(1), nine.getTable());
+        assertSame(client, nine.getUser());
+        assertEquals(0, storage.findReservations(restaurant.getId() + 1, LocalDateTime.MIN, LocalDateTime.MAX).size());
+
+        List<Reservation> onTable = storage.findReservations(restaurant.getId(), 2, DAY.atStartOfDay(),
+                DAY.plusDays(2).atStartOfDay());
+        assertEquals(List.of(DAY.atTime(12, 0), DAY.atTime(20, 0), DAY.plusDays(1).atTime(12, 0),
+                DAY.plusDays(1).atTime(20, 0)), onTable.stream().map(Reservation::getDateTime).toList());
+        assertEquals(0, storage.findReservations(restaurant.getId(), 3, LocalDateTime.MIN, LocalDateTime.MAX).size());
+        storage.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memory", "file"})
+    public void findReviewsAfter_When_ReviewReplaced_Then_SameAsRestaurant(String engine) throws IOException {
+        Storage storage = open(engine);
+        Restaurant restaurant = new Restaurant("R", null, "Cafe", LocalTime.of(8, 0), LocalTime.of(22, 0), "", null, "");
+        storage.addRestaurant(restaurant);
+        User[] users = new User[6];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new User("user" + i, "pass", i + "@example.com", null, User.Role.client);
+            storage.addUser(users[i]);
+        }
+        for (int i = 0; i < 20; i++) {
+            User user = users[(i * 7) % users.length];
+            Review review = new Review(user, new Rating(), "review " + i, LocalDateTime.now());
+            Review replaced = restaurant.getReview(user);
+            restaurant.addReview(review);
+            storage.addReview(restaurant, review, replaced);
+        }
+
+        assertEquals(restaurant.getReviews(), storage.findReviewsAfter(restaurant.getId(), -1, 100));
+        long after = restaurant.getReviews().get(1).getSequence();
+        assertEquals(restaurant.getReviewsAfter(after, 3), storage.findReviewsAfter(restaurant.getId(), after, 3));
+        storage.close();
+    }
+}
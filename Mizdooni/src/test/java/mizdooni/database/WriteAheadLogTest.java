@@ -0,0 +1,145 @@
+package mizdooni.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTest {
+    private static final String FIRST_SEGMENT = "wal-000000000000.log";
+
+    @TempDir
+    Path dir;
+
+    private List<String> replay(Path path) throws IOException {
+        List<String> records = new ArrayList<>();
+        WriteAheadLog.open(path, 0, (type, payload) -> records.add(type + ":" + new String(payload, StandardCharsets.UTF_8))).close();
+        return records;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void open_When_RecordsSynced_Then_ReplayedInOrder() throws IOException {
+        Path path = dir.resolve("log");
+        try (WriteAheadLog log = WriteAheadLog.open(path, 0, (type, payload) -> fail())) {
+            log.append((byte) 1, bytes("first"));
+            log.sync(log.append((byte) 2, bytes("second")));
+        }
+        assertEquals(List.of("1:first", "2:second"), replay(path));
+    }
+
+    @Test
+    public void open_When_AppendedAfterReopen_Then_AllReplayed() throws IOException {
+        Path path = dir.resolve("wal");
+        try (WriteAheadLog log = WriteAheadLog.open(path, 0, (type, payload) -> {})) {
+            log.sync(log.append((byte) 1, bytes("first")));
+        }
+        try (WriteAheadLog log = WriteAheadLog.open(path, 0, (type, payload) -> {})) {
+            log.sync(log.append((byte) 1, bytes("second")));
+        }
+        assertEquals(List.of("1:first", "1:second"), replay(path));
+    }
+
+    @Test
+    public void open_When_LastRecordTorn_Then_DroppedAndTruncated() throws IOException {
+        Path path = dir.resolve("wal");
+        try (WriteAheadLog log = WriteAheadLog.open(path, 0, (type, payload) -> {})) {
+            log.append((byte) 1, bytes("kept"));
+            log.sync(log.append((byte) 1, bytes("torn record")));
+        }
+        Path segment = path.resolve(FIRST_SEGMENT);
+        long intact = Files.size(segment) - 5;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(intact);
+        }
+
+        assertEquals(List.of("1:kept"), replay(path));
+        try (WriteAheadLog log = WriteAheadLog.open(path, 0, (type, payload) -> {})) {
+            log.sync(log.append((byte) 1, bytes("after")));
+        }
+        assertEquals(List.of("1:kept", "1:after"), replay(path));
+    }
+
+    @Test
+    public void open_When_RecordCorrupted_Then_ReplayStopsBeforeIt() throws IOException {
+        Path path = dir.resolve("wal");
+        try (WriteAheadLog log = WriteAheadLog.open(path, 0, (type, payload) -> {})) {
+            log.append((byte) 1, bytes("kept"));
+            log.sync(log.append((byte) 1, bytes("corrupted")));
+        }
+        Path segment = path.resolve(FIRST_SEGMENT);
+        byte[] content = Files.readAllBytes(segment);
+        content[content.length - 1] ^= 1;
+        Files.write(segment, content);
+
+        assertEquals(List.of("1:kept"), replay(path));
+    }
+
+    @Test
+    public void rotate_When_OldSegmentsDeleted_Then_OnlyNewRecordsReplayed() throws IOException {
+        Path path = dir.resolve("wal");
+        try (WriteAheadLog log = WriteAheadLog.open(path, 0, (type, payload) -> {})) {
+            log.append((byte) 1, bytes("before"));
+            long segment = log.rotate();
+            assertEquals(1, segment);
+            log.sync(log.append((byte) 1, bytes("after")));
+            assertEquals(List.of("1:before", "1:after"), replay(path));
+
+            log.deleteSegmentsBefore(segment);
+        }
+        assertEquals(List.of("1:after"), replay(path));
+
+        List<String> fromSegment = new ArrayList<>();
+        WriteAheadLog.open(path, 1, (type, payload) -> fromSegment.add(new String(payload, StandardCharsets.UTF_8))).close();
+        assertEquals(List.of("after"), fromSegment);
+    }
+
+    @Test
+    public void sync_When_ConcurrentAppenders_Then_EveryRecordDurable() throws Exception {
+        Path path = dir.resolve("wal");
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (WriteAheadLog log = WriteAheadLog.open(path, 0, (type, payload) -> {})) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        log.sync(log.append((byte) 1, bytes(thread + "-" + i)));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<String> records = replay(path);
+        assertEquals(threads * perThread, records.size());
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            List<String> ofThread = records.stream().filter(r -> r.startsWith("1:" + thread + "-")).toList();
+            for (int i = 0; i < perThread; i++) {
+                assertEquals("1:" + thread + "-" + i, ofThread.get(i));
+            }
+        }
+    }
+}
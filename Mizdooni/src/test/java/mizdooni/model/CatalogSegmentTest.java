@@ -0,0 +1,98 @@
+package mizdooni.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSegmentTest {
+    @TempDir
+    Path dir;
+
+    private final User manager = new User("manager", "pass", "m@example.com", null, User.Role.manager);
+
+    private Restaurant restaurant(String name, String description, Address address, String imageLink) {
+        return new Restaurant(name, manager, "Iranian", LocalTime.of(8, 30), LocalTime.of(23, 45),
+                description, address, imageLink);
+    }
+
+    @Test
+    public void attachCatalog_When_Attached_Then_GettersReturnSameValues() throws IOException {
+        Restaurant first = restaurant("Shandiz", "کباب و جوجه", new Address("Iran", "Mashhad", "Ahmadabad"), "a.jpg");
+        Restaurant second = restaurant("", null, new Address("Iran", null, null), null);
+        List<Restaurant> restaurants = List.of(first, second);
+
+        CatalogSegment segment = CatalogSegment.write(dir.resolve("catalog.seg"), restaurants);
+        first.attachCatalog(segment, 0);
+        second.attachCatalog(segment, 1);
+
+        assertEquals(2, segment.size());
+        assertEquals("Shandiz", first.getName());
+        assertEquals("Iranian", first.getType());
+        assertEquals(LocalTime.of(8, 30), first.getStartTime());
+        assertEquals(LocalTime.of(23, 45), first.getEndTime());
+        assertEquals("کباب و جوجه", first.getDescription());
+        assertEquals("Mashhad", first.getAddress().getCity());
+        assertEquals("Ahmadabad", first.getAddress().getStreet());
+        assertEquals("a.jpg", first.getImageLink());
+        assertEquals(manager, first.getManager());
+
+        assertEquals("", second.getName());
+        assertNull(second.getDescription());
+        assertEquals("Iran", second.getAddress().getCountry());
+        assertNull(second.getAddress().getCity());
+        assertNull(second.getImageLink());
+    }
+
+    @Test
+    public void write_When_Written_Then_SameRows() throws IOException {
+        CatalogSegment segment = CatalogSegment.write(dir.resolve("catalog.seg"),
+                List.of(restaurant("Nayeb", "desc", new Address("Iran", "Tehran", "Vali"), "n.jpg")));
+
+        assertEquals(1, segment.size());
+        assertEquals("Nayeb", segment.name(0));
+        assertEquals("Tehran", segment.address(0).getCity());
+        assertEquals(LocalTime.of(23, 45), segment.endTime(0));
+    }
+
+    @Test
+    public void attachCatalog_When_AddressNull_Then_GetterReturnsNull() throws IOException {
+        Restaurant withoutAddress = restaurant("Nowhere", "desc", null, "n.jpg");
+        Restaurant emptyAddress = restaurant("Somewhere", "desc", new Address(null, null, null), "s.jpg");
+        CatalogSegment segment = CatalogSegment.write(dir.resolve("catalog.seg"), List.of(withoutAddress, emptyAddress));
+        withoutAddress.attachCatalog(segment, 0);
+        emptyAddress.attachCatalog(segment, 1);
+
+        assertNull(withoutAddress.getAddress());
+        assertFalse(withoutAddress.hasCity("Tehran", bytes("Tehran")));
+        assertNotNull(emptyAddress.getAddress());
+        assertNull(emptyAddress.getAddress().getCountry());
+    }
+
+    @Test
+    public void hasType_When_Attached_Then_SameAsOnHeap() throws IOException {
+        Restaurant onHeap = restaurant("کباب شندیز", "desc", new Address("Iran", "مشهد", "Vali"), "n.jpg");
+        Restaurant attached = restaurant("کباب شندیز", "desc", new Address("Iran", "مشهد", "Vali"), "n.jpg");
+        attached.attachCatalog(CatalogSegment.write(dir.resolve("catalog.seg"), List.of(attached)), 0);
+
+        for (Restaurant r : List.of(onHeap, attached)) {
+            assertTrue(r.hasType("Iranian", bytes("Iranian")));
+            assertFalse(r.hasType("Irani", bytes("Irani")));
+            assertTrue(r.hasCity("مشهد", bytes("مشهد")));
+            assertFalse(r.hasCity("Tehran", bytes("Tehran")));
+            assertTrue(r.nameContains("شندیز", bytes("شندیز")));
+            assertTrue(r.nameContains("", bytes("")));
+            assertFalse(r.nameContains("شندیزی", bytes("شندیزی")));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
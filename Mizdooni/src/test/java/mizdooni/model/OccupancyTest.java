@@ -0,0 +1,104 @@
+package mizdooni.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OccupancyTest {
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 1);
+
+    private final User manager = new User("manager", "pass", "m@example.com", null, User.Role.manager);
+    private final User client = new User("client", "pass", "c@example.com", null, User.Role.client);
+    private final Restaurant restaurant = new Restaurant("R", manager, "Cafe", LocalTime.of(0, 0), LocalTime.of(23, 0),
+            "", null, "");
+    private final ReservationStore reservationStore = new ReservationStore();
+
+    {
+        client.attachReservationStore(reservationStore);
+        restaurant.attachReservationStore(reservationStore);
+    }
+
+
+    private Reservation reserve(Table table, LocalDateTime datetime) {
+        Reservation reservation = new Reservation(client, restaurant, table, datetime);
+        assertTrue(table.tryReserve(reservation));
+        client.addReservation(reservation);
+        return reservation;
+    }
+
+    private int freeHoursByTable(LocalDate date, int people) {
+        int free = 0;
+        for (Table table : restaurant.getTables()) {
+            if (table.getSeatsNumber() >= people) {
+                free |= ~table.getReservedHours(date) & 0xFFFFFF;
+            }
+        }
+        return free;
+    }
+
+    @Test
+    public void freeHours_When_AllLargeEnoughTablesTaken_Then_HourNotFree() {
+        Table small = new Table(0, restaurant.getId(), 2);
+        Table large = new Table(0, restaurant.getId(), 6);
+        restaurant.addTable(small);
+        restaurant.addTable(large);
+        Occupancy occupancy = restaurant.getOccupancy();
+
+        reserve(large, DAY.atTime(19, 0));
+        assertEquals(0, occupancy.freeHours(DAY, 4) & 1 << 19);
+        assertNotEquals(0, occupancy.freeHours(DAY, 2) & 1 << 19);
+        assertEquals(1, occupancy.freeTables(DAY, 19, 2));
+
+        reserve(small, DAY.atTime(19, 0)).cancel();
+        assertNotEquals(0, occupancy.freeHours(DAY, 2) & 1 << 19);
+        assertEquals(0, occupancy.freeHours(DAY, 7));
+        assertEquals(0xFFFFFF, occupancy.freeHours(DAY.plusDays(1), 6));
+    }
+
+    @Test
+    public void freeHours_When_TableAddedAfterBookings_Then_ItCountsAsFree() {
+        Table first = new Table(0, restaurant.getId(), 4);
+        restaurant.addTable(first);
+        reserve(first, DAY.atTime(12, 0));
+        assertEquals(0, restaurant.getOccupancy().freeHours(DAY, 4) & 1 << 12);
+
+        restaurant.addTable(new Table(0, restaurant.getId(), 4));
+
+        assertNotEquals(0, restaurant.getOccupancy().freeHours(DAY, 4) & 1 << 12);
+    }
+
+    @Test
+    public void freeHours_When_RandomBookingsAndCancellations_Then_MatchesTableScan() {
+        Random random = new Random(42);
+        for (int seats : new int[]{2, 2, 4, 4, 4, 6, 8}) {
+            restaurant.addTable(new Table(0, restaurant.getId(), seats));
+        }
+        List<Table> tables = restaurant.getTables();
+        List<Reservation> active = new ArrayList<>();
+        for (int step = 0; step < 3000; step++) {
+            if (!active.isEmpty() && random.nextInt(3) == 0) {
+                active.remove(random.nextInt(active.size())).cancel();
+                continue;
+            }
+            Table table = tables.get(random.nextInt(tables.size()));
+            LocalDateTime datetime = DAY.plusDays(random.nextInt(5)).atTime(random.nextInt(24), 0);
+            if (!table.isReserved(datetime)) {
+                active.add(reserve(table, datetime));
+            }
+        }
+
+        for (int d = 0; d < 5; d++) {
+            for (int people = 1; people <= 9; people++) {
+                assertEquals(freeHoursByTable(DAY.plusDays(d), people),
+                        restaurant.getOccupancy().freeHours(DAY.plusDays(d), people));
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package mizdooni.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReservationArchiveTest {
+    private final ReservationStore reservationStore = new ReservationStore();
+    private final User manager = new User("manager", "pass", "m@example.com", null, User.Role.manager);
+    private final User client = new User("client", "pass", "c@example.com", null, User.Role.client);
+    private final Restaurant restaurant = new Restaurant("R", manager, "Cafe", LocalTime.of(8, 0), LocalTime.of(23, 0),
+            "", null, "");
+    private final Table table = new Table(0, restaurant.getId(), 4);
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private static final LocalDateTime CUTOFF = LocalDate.of(2030, 1, 2).atStartOfDay();
+
+    {
+        client.attachReservationStore(reservationStore);
+        restaurant.attachReservationStore(reservationStore);
+        restaurant.addTable(table);
+    }
+
+    private Reservation reserve(LocalDateTime datetime) {
+        Reservation reservation = new Reservation(client, restaurant, table, datetime);
+        assertTrue(table.tryReserve(reservation));
+        client.addReservation(reservation);
+        return reservation;
+    }
+
+    private void archive(LocalDateTime cutoff) {
+        table.archiveBefore(cutoff);
+        client.archiveBefore(cutoff);
+    }
+
+    @Test
+    public void archiveBefore_When_PastReservations_Then_ListedWithCurrentInOrder() {
+        Reservation first = reserve(START.plusDays(2));
+        Reservation second = reserve(START);
+        Reservation third = reserve(START.plusHours(2));
+        third.cancel();
+
+        archive(CUTOFF);
+
+        List<Reservation> fromTable = table.getReservations();
+        assertEquals(List.of(first, second, third), fromTable);
+        assertEquals(fromTable, client.getReservations());
+        assertEquals(START, fromTable.get(1).getDateTime());
+        assertEquals(1, fromTable.get(1).getReservationNumber());
+        assertFalse(fromTable.get(1).isCancelled());
+        assertTrue(fromTable.get(2).isCancelled());
+        assertSame(client, fromTable.get(1).getUser());
+        assertSame(table, fromTable.get(1).getTable());
+    }
+
+    @Test
+    public void archiveBefore_When_Archived_Then_SlotsFreedButLookupsStillWork() {
+        reserve(START);
+        reserve(START.plusDays(2));
+
+        archive(CUTOFF);
+
+        assertFalse(table.isReserved(START));
+        assertEquals(0, table.getReservedHours(START.toLocalDate()));
+        assertTrue(table.isReserved(START.plusDays(2)));
+        assertEquals(START, client.getReservation(0).getDateTime());
+        assertEquals(START.plusDays(2), client.getReservation(1).getDateTime());
+        assertNull(client.getReservation(2));
+    }
+
+    @Test
+    public void checkReserved_When_VisitArchived_Then_StillReserved() {
+        Restaurant other = new Restaurant("Other", manager, "Cafe", LocalTime.of(8, 0), LocalTime.of(23, 0),
+                "", null, "");
+        Table otherTable = new Table(0, other.getId(), 4);
+        other.attachReservationStore(reservationStore);
+        other.addTable(otherTable);
+        reserve(LocalDateTime.of(2020, 1, 1, 12, 0));
+        Reservation cancelled = new Reservation(client, other, otherTable, LocalDateTime.of(2020, 1, 1, 12, 0));
+        otherTable.addReservation(cancelled);
+        client.addReservation(cancelled);
+        cancelled.cancel();
+
+        archive(LocalDate.of(2021, 1, 1).atStartOfDay());
+
+        assertTrue(client.checkReserved(restaurant));
+        assertFalse(client.checkReserved(other));
+    }
+
+    @Test
+    public void archiveBefore_When_WholeChunkArchived_Then_ChunkFreed() {
+        ReservationStore store = reservationStore;
+        int count = 3 * 4096;
+        LocalDateTime first = LocalDateTime.of(2020, 1, 1, 0, 0);
+        for (int i = 0; i < count; i++) {
+            reserve(first.plusMinutes(i));
+        }
+        int liveBefore = store.liveChunks();
+
+        archive(CUTOFF);
+
+        assertTrue(store.liveChunks() < liveBefore);
+        List<Reservation> reservations = client.getReservations();
+        assertEquals(count, reservations.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(first.plusMinutes(i), reservations.get(i).getDateTime());
+            assertEquals(i, reservations.get(i).getReservationNumber());
+        }
+    }
+}
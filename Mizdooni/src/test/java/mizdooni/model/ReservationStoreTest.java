@@ -0,0 +1,124 @@
+package mizdooni.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReservationStoreTest {
+    private final User manager = new User("manager", "pass", "m@example.com", null, User.Role.manager);
+    private final User client = new User("client", "pass", "c@example.com", null, User.Role.client);
+    private final Restaurant restaurant = new Restaurant("R", manager, "Cafe", LocalTime.of(8, 0), LocalTime.of(23, 0),
+            "", null, "");
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private final ReservationStore reservationStore = new ReservationStore();
+
+    {
+        client.attachReservationStore(reservationStore);
+        restaurant.attachReservationStore(reservationStore);
+    }
+
+    private Table table() {
+        Table table = new Table(0, restaurant.getId(), 4);
+        restaurant.addTable(table);
+        return table;
+    }
+
+    private Reservation reserve(Table table, LocalDateTime datetime) {
+        Reservation reservation = new Reservation(client, restaurant, table, datetime);
+        assertTrue(table.tryReserve(reservation));
+        client.addReservation(reservation);
+        return reservation;
+    }
+
+    @Test
+    public void getReservations_When_Stored_Then_EqualViewsOfSameRows() {
+        Table table = table();
+        Reservation first = reserve(table, START);
+        Reservation second = reserve(table, START.plusMinutes(90));
+
+        List<Reservation> fromTable = table.getReservations();
+        List<Reservation> fromUser = client.getReservations();
+        assertEquals(List.of(first, second), fromTable);
+        assertEquals(fromTable, fromUser);
+        assertNotSame(first, fromTable.get(0));
+
+        Reservation view = fromUser.get(1);
+        assertSame(client, view.getUser());
+        assertSame(restaurant, view.getRestaurant());
+        assertSame(table, view.getTable());
+        assertEquals(START.plusMinutes(90), view.getDateTime());
+        assertEquals(1, view.getReservationNumber());
+    }
+
+    @Test
+    public void cancel_When_CancelledThroughView_Then_RowAndSlotReleased() {
+        Table table = table();
+        Reservation original = reserve(table, START);
+
+        client.getReservation(0).cancel();
+
+        assertTrue(original.isCancelled());
+        assertTrue(table.getReservations().get(0).isCancelled());
+        assertFalse(table.isReserved(START));
+        assertNull(client.getReservation(0));
+        assertTrue(table.tryReserve(new Reservation(client, restaurant, table, START)));
+    }
+
+    @Test
+    public void add_When_CancelledBeforeStored_Then_StoredCancelled() {
+        Table table = table();
+        Reservation reservation = new Reservation(client, restaurant, table, START);
+        reservation.cancel();
+        table.addReservation(reservation);
+
+        assertTrue(table.getReservations().get(0).isCancelled());
+        assertFalse(table.isReserved(START));
+    }
+
+    @Test
+    public void add_When_ManyChunks_Then_EveryRowReadBack() {
+        Table table = table();
+        int count = 10_000;
+        for (int i = 0; i < count; i++) {
+            reserve(table, START.plusHours(i));
+        }
+
+        List<Reservation> reservations = client.getReservations();
+        assertEquals(count, reservations.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, reservations.get(i).getReservationNumber());
+            assertEquals(START.plusHours(i), reservations.get(i).getDateTime());
+        }
+        assertFalse(client.checkReserved(restaurant));
+    }
+
+    @Test
+    public void addReservation_When_UserHasOtherStore_Then_Rejected() {
+        Table table = table();
+        User stranger = new User("stranger", "pass", "s@example.com", null, User.Role.client);
+        stranger.attachReservationStore(new ReservationStore());
+        Reservation reservation = new Reservation(stranger, restaurant, table, START);
+        assertTrue(table.tryReserve(reservation));
+
+        assertThrows(IllegalStateException.class, () -> stranger.addReservation(reservation));
+        assertEquals(List.of(), stranger.getReservations());
+    }
+
+    @Test
+    public void tryReserve_When_NumberTakenFirst_Then_TableNeverSeesItUnnumbered() {
+        Table table = table();
+        reserve(table, START);
+        Reservation reservation = new Reservation(client, restaurant, table, START.plusHours(1));
+        reservation.setReservationNumber(client.nextReservationNumber());
+        assertTrue(table.tryReserve(reservation));
+
+        assertEquals(1, table.getReservations().get(1).getReservationNumber());
+        client.addReservation(reservation);
+        assertEquals(1, client.getReservation(1).getReservationNumber());
+        assertEquals(2, reserve(table, START.plusHours(2)).getReservationNumber());
+    }
+}
@@ -0,0 +1,89 @@
+package mizdooni.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RestaurantSearchFilterTest {
+    private List<Restaurant> restaurants;
+
+    @BeforeEach
+    void setup() {
+        restaurants = new ArrayList<>();
+        Random random = new Random(11);
+        Address address = new Address("Iran", "Tehran", "street");
+        for (int i = 0; i < 200; i++) {
+            Restaurant restaurant = new Restaurant("restaurant " + i, null, "type", LocalTime.of(9, 0),
+                    LocalTime.of(22, 0), "", address, "");
+            int reviews = random.nextInt(4);
+            for (int j = 0; j < reviews; j++) {
+                Rating rating = new Rating();
+                rating.overall = random.nextInt(3) + 2;
+                User user = new User("user" + i + "_" + j, "pass", "mail@example.com", address, User.Role.client);
+                restaurant.addReview(new Review(user, rating, "", LocalDateTime.now()));
+            }
+            restaurants.add(restaurant);
+        }
+    }
+
+    private RestaurantSearchFilter make_filter(String sort, String order) {
+        RestaurantSearchFilter filter = new RestaurantSearchFilter();
+        filter.setSort(sort);
+        filter.setOrder(order);
+        return filter;
+    }
+
+    private List<Restaurant> stable_sort(String sort, boolean ascending) {
+        Comparator<Restaurant> comparator = sort.equals("rating")
+                ? Comparator.comparingDouble(r -> r.getAverageRating().overall)
+                : Comparator.comparingInt(Restaurant::getReviewCount);
+        List<Restaurant> sorted = new ArrayList<>(restaurants);
+        sorted.sort(ascending ? comparator : comparator.reversed());
+        return sorted;
+    }
+
+    @ParameterizedTest
+    @CsvSource({"rating, desc", "rating, asc", "reviews, desc", "reviews, asc"})
+    public void sort_When_Limited_Then_PrefixOfStableFullSort(String sort, String order) {
+        RestaurantSearchFilter filter = make_filter(sort, order);
+        List<Restaurant> expected = stable_sort(sort, order.equals("asc"));
+
+        for (int limit : new int[]{1, 12, 36, 199, 200, 500}) {
+            assertEquals(expected.subList(0, Math.min(limit, expected.size())), filter.sort(restaurants, limit));
+        }
+        assertEquals(expected, filter.sort(restaurants));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"rating, desc", "rating, asc", "reviews, desc", "reviews, asc"})
+    public void sortAfter_When_PagedByLastKey_Then_SameAsStableFullSort(String sort, String order) {
+        RestaurantSearchFilter filter = make_filter(sort, order);
+        List<Restaurant> paged = new ArrayList<>(filter.sort(restaurants, 12));
+        while (true) {
+            Restaurant last = paged.get(paged.size() - 1);
+            List<Restaurant> page = filter.sortAfter(restaurants, filter.score(last), last.getId(), 12);
+            if (page.isEmpty()) {
+                break;
+            }
+            paged.addAll(page);
+        }
+        assertEquals(stable_sort(sort, order.equals("asc")), paged);
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {"null, null", "name, asc"}, nullValues = "null")
+    public void sort_When_NoSupportedSort_Then_InputOrder(String sort, String order) {
+        RestaurantSearchFilter filter = make_filter(sort, order);
+        assertEquals(restaurants.subList(0, 12), filter.sort(restaurants, 12));
+        assertEquals(restaurants, filter.sort(restaurants));
+    }
+}
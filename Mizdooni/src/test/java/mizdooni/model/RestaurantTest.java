@@ -17,9 +17,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
 
-import static org.junit.Assert.*;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 public class RestaurantTest {
@@ -176,4 +174,81 @@ public class RestaurantTest {
         assertEquals(expectedAverage.ambiance, actualAverage.ambiance);
         assertEquals(expectedAverage.overall, actualAverage.overall);
     }
+
+    @Test
+    public void getAverageRating_When_UserReplacesReview_Then_OnlyLatestCounted() {
+        User other = Mockito.mock(User.class);
+        restaurant.addReview(new Review(dummyUser, setRating(new Rating(), 1, 1, 1, 1), "", LocalDateTime.now()));
+        restaurant.addReview(new Review(other, setRating(new Rating(), 3, 3, 3, 3), "", LocalDateTime.now()));
+        restaurant.addReview(new Review(dummyUser, setRating(new Rating(), 5, 4, 2, 5), "", LocalDateTime.now()));
+
+        Rating actualAverage = restaurant.getAverageRating();
+
+        assertEquals(2, restaurant.getReviewCount());
+        assertEquals(4, actualAverage.food);
+        assertEquals(3.5, actualAverage.service);
+        assertEquals(2.5, actualAverage.ambiance);
+        assertEquals(4, actualAverage.overall);
+        assertEquals(4, restaurant.getStarCount());
+    }
+
+    @Test
+    public void getAverageRating_When_OnlyReviewReplaced_Then_NewRating() {
+        restaurant.addReview(new Review(dummyUser, setRating(new Rating(), 1, 2, 3, 4), "", LocalDateTime.now()));
+        restaurant.addReview(new Review(dummyUser, setRating(new Rating(), 0.3, 0.1, 0.7, 0.9), "", LocalDateTime.now()));
+
+        Rating actualAverage = restaurant.getAverageRating();
+
+        assertEquals(1, restaurant.getReviewCount());
+        assertEquals(0.3, actualAverage.food);
+        assertEquals(0.1, actualAverage.service);
+        assertEquals(0.7, actualAverage.ambiance);
+        assertEquals(0.9, actualAverage.overall);
+    }
+
+    @Test
+    public void getReviews_When_UserReplacesReview_Then_ReplacementMovesToEnd() {
+        User other = Mockito.mock(User.class);
+        Review otherReview = new Review(other, new Rating(), "3", LocalDateTime.now());
+        restaurant.addReview(randomReview1);
+        restaurant.addReview(otherReview);
+        restaurant.addReview(randomReview2);
+
+        assertEquals(List.of(otherReview, randomReview2), restaurant.getReviews());
+    }
+
+    @Test
+    public void getReviewsAfter_When_PagedThroughReplacements_Then_SameAsGetReviews() {
+        List<User> users = new java.util.ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(Mockito.mock(User.class));
+        }
+        java.util.Random random = new java.util.Random(3);
+        for (int i = 0; i < 300; i++) {
+            restaurant.addReview(new Review(users.get(random.nextInt(users.size())), new Rating(), "" + i, LocalDateTime.now()));
+        }
+
+        List<Review> paged = new java.util.ArrayList<>();
+        long after = -1;
+        List<Review> page;
+        while (!(page = restaurant.getReviewsAfter(after, 3)).isEmpty()) {
+            paged.addAll(page);
+            after = page.get(page.size() - 1).getSequence();
+        }
+
+        assertEquals(restaurant.getReviews(), paged);
+        assertEquals(restaurant.getReviewCount(), paged.size());
+    }
+
+    @Test
+    public void getReviewsAfter_When_CursorReviewReplaced_Then_ContinuesAfterIt() {
+        User other = Mockito.mock(User.class);
+        Review otherReview = new Review(other, new Rating(), "3", LocalDateTime.now());
+        restaurant.addReview(randomReview1);
+        restaurant.addReview(otherReview);
+        long after = randomReview1.getSequence();
+        restaurant.addReview(randomReview2);
+
+        assertEquals(List.of(otherReview, randomReview2), restaurant.getReviewsAfter(after, 5));
+    }
 }
@@ -0,0 +1,34 @@
+package mizdooni.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotMapTest {
+    @Test
+    public void operations_When_RandomSequence_Then_SameAsHashMap() {
+        SlotMap slots = new SlotMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 200_000; i++) {
+            // few distinct keys so that removals hit long probe runs
+            int key = random.nextInt(2000) * 60;
+            int value = random.nextInt(4);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    slots.put(key, value);
+                    expected.put(key, value);
+                }
+                case 1 -> assertEquals(expected.remove(key, value), slots.remove(key, value));
+                default -> assertEquals(expected.containsKey(key), slots.containsKey(key));
+            }
+        }
+        for (int key = 0; key < 2000 * 60; key += 60) {
+            assertEquals(expected.containsKey(key), slots.containsKey(key));
+        }
+    }
+}
@@ -1,4 +1,4 @@
-/*package mizdooni.model;
+package mizdooni.model;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +13,7 @@ import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
@@ -34,6 +35,7 @@ public class TableTest {
         when(restaurant.getId()).thenReturn(1);
 
         table = new Table(1, restaurant.getId(), 10);
+        table.attachReservationStore(new ReservationStore());
         canceled_reservation = new Reservation(dummyUser, restaurant, table, make_localDateTime(2024, 5, 2, 19, 30));
         canceled_reservation.cancel();
         reservations = Arrays.asList(
@@ -68,20 +70,20 @@ public class TableTest {
 
     @Test
     public void isReserved_When_Reserved_Then_True() {
-        LocalDateTime date_time = reservations.getFirst().getDateTime();
+        LocalDateTime date_time = reservations.get(0).getDateTime();
         assertTrue(table.isReserved(date_time));
     }
 
     @Test
     public void isReserved_When_ReserveDateDifferent_Then_False() {
-        LocalDateTime reserved_date_time = reservations.getFirst().getDateTime();
+        LocalDateTime reserved_date_time = reservations.get(0).getDateTime();
         LocalDateTime unreserved_date_time = LocalDateTime.of(give_unreserved_date(), reserved_date_time.toLocalTime());
         assertFalse(table.isReserved(unreserved_date_time));
     }
 
     @Test
     public void isReserved_When_ReserveTimeDifferent_Then_False() {
-        LocalDateTime reserved_date_time = reservations.getFirst().getDateTime();
+        LocalDateTime reserved_date_time = reservations.get(0).getDateTime();
         LocalDateTime unreserved_date_time = LocalDateTime.of(reserved_date_time.toLocalDate(), give_unreserved_time());
         assertFalse(table.isReserved(unreserved_date_time));
     }
@@ -90,4 +92,64 @@ public class TableTest {
     public void isReserved_When_ReservationCanceled_Then_False() {
         assertFalse(table.isReserved(canceled_reservation.getDateTime()));
     }
-}*/
\ No newline at end of file
+
+    @Test
+    public void isReserved_When_ReservationCanceledAfterAdd_Then_False() {
+        Reservation r = reservations.get(0);
+        r.cancel();
+        assertFalse(table.isReserved(r.getDateTime()));
+    }
+
+    @Test
+    public void isReserved_When_SlotRebookedAfterCancel_Then_True() {
+        Reservation r = reservations.get(0);
+        r.cancel();
+        table.addReservation(new Reservation(dummyUser, restaurant, table, r.getDateTime()));
+        assertTrue(table.isReserved(r.getDateTime()));
+    }
+
+    @Test
+    public void getReservedHours_When_OnTheHourReservation_Then_HourBitSet() {
+        LocalDateTime date_time = make_localDateTime(2024, 6, 1, 12, 0);
+        table.addReservation(new Reservation(dummyUser, restaurant, table, date_time));
+        assertEquals(1 << 12, table.getReservedHours(date_time.toLocalDate()));
+    }
+
+    @Test
+    public void getReservedHours_When_ReservationCanceled_Then_HourBitCleared() {
+        LocalDateTime date_time = make_localDateTime(2024, 6, 1, 12, 0);
+        Reservation r = new Reservation(dummyUser, restaurant, table, date_time);
+        table.addReservation(r);
+        r.cancel();
+        assertEquals(0, table.getReservedHours(date_time.toLocalDate()));
+    }
+
+    @Test
+    public void getReservations_When_DayGiven_Then_OnlyThatDayInTimeOrder() {
+        LocalDate day = LocalDate.of(2024, 5, 2);
+        List<Reservation> found = table.getReservations(day, day);
+        assertEquals(List.of(reservations.get(2), canceled_reservation), found);
+        assertTrue(found.get(1).isCancelled());
+    }
+
+    @Test
+    public void getReservations_When_RangeGiven_Then_AllDaysInRange() {
+        assertEquals(reservations, table.getReservations(LocalDate.of(2024, 4, 1), LocalDate.of(2024, 5, 2)));
+        assertEquals(List.of(), table.getReservations(LocalDate.of(2024, 5, 3), LocalDate.of(2024, 5, 9)));
+        assertEquals(List.of(), table.getReservations(LocalDate.of(2024, 5, 2), LocalDate.of(2024, 5, 1)));
+    }
+
+    @Test
+    public void getReservations_When_DaysArchived_Then_StillFoundByRange() {
+        table.archiveBefore(make_localDateTime(2024, 5, 1, 19, 0));
+        table.addReservation(new Reservation(dummyUser, restaurant, table, make_localDateTime(2024, 5, 1, 20, 0)));
+
+        List<Reservation> found = table.getReservations(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 1));
+
+        assertEquals(3, found.size());
+        assertEquals(reservations.get(0), found.get(0));
+        assertEquals(reservations.get(1), found.get(1));
+        assertEquals(make_localDateTime(2024, 5, 1, 20, 0), found.get(2).getDateTime());
+        assertEquals(2, table.getReservations(LocalDate.of(2024, 5, 2), LocalDate.of(2024, 5, 2)).size());
+    }
+}
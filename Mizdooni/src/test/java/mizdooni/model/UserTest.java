@@ -32,6 +32,7 @@ public class UserTest {
         restaurant = new Restaurant("Test Restaurant", manager, "Foodcourt", LocalTime.now(), LocalTime.now().plusHours(6),
                 "description", address, "Link");
         user = new User("testUser", "1234", "test@example.com", address, User.Role.client);
+        user.attachReservationStore(new ReservationStore());
         reservation = new Reservation(user, restaurant, new Table(1, 2, 3), LocalDateTime.now().minusDays(1));
     }
 
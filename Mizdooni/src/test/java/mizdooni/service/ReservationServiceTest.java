@@ -0,0 +1,284 @@
+package mizdooni.service;
+
+import mizdooni.database.Database;
+import mizdooni.database.MemoryStorage;
+import mizdooni.exceptions.InvalidDateRange;
+import mizdooni.exceptions.TableNotFound;
+import mizdooni.model.*;
+import mizdooni.response.RestaurantReservations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class ReservationServiceTest {
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+
+    @Mock
+    private Database db;
+    @Mock
+    private UserService userService;
+    @InjectMocks
+    private ReservationService reservationService;
+
+    private User client;
+    private Address address;
+    private ReservationStore reservationStore;
+
+    @BeforeEach
+    void setup() {
+        address = new Address("Iran", "Tehran", "Azadi");
+        reservationStore = new ReservationStore();
+        client = new User("client", "pass", "client@example.com", address, User.Role.client);
+        client.attachReservationStore(reservationStore);
+        lenient().when(userService.getCurrentUser()).thenReturn(client);
+        // books the way the database does, without the log
+        lenient().when(db.addReservation(any())).thenAnswer(call -> {
+            Reservation reservation = call.getArgument(0);
+            if (!reservation.getTable().tryReserve(reservation)) {
+                return false;
+            }
+            reservation.getUser().addReservation(reservation);
+            return true;
+        });
+        lenient().doAnswer(call -> {
+            call.<Reservation>getArgument(0).cancel();
+            return null;
+        }).when(db).cancelReservation(any());
+    }
+
+    /**
+     * Answers the database's reservation queries from a memory storage engine holding {@code restaurant}.
+     */
+    private void stub_reservation_queries(Restaurant restaurant) {
+        MemoryStorage storage = new MemoryStorage();
+        storage.addRestaurant(restaurant);
+        lenient().when(db.findReservations(anyInt(), any(), any())).thenAnswer(call ->
+                storage.findReservations(call.getArgument(0), call.<LocalDateTime>getArgument(1), call.getArgument(2)));
+        lenient().when(db.findReservations(anyInt(), anyInt(), any(), any())).thenAnswer(call ->
+                storage.findReservations(call.getArgument(0), call.<Integer>getArgument(1), call.getArgument(2),
+                        call.getArgument(3)));
+    }
+
+    private Restaurant make_restaurant_with_tables(int tables) {
+        User manager = new User("manager", "pass", "manager@example.com", address, User.Role.manager);
+        Restaurant restaurant = new Restaurant("restaurant", manager, "type", LocalTime.of(0, 0), LocalTime.of(23, 0),
+                "description", address, "image");
+        restaurant.attachReservationStore(reservationStore);
+        for (int i = 0; i < tables; i++) {
+            restaurant.addTable(new Table(0, restaurant.getId(), 4));
+        }
+        lenient().when(db.findRestaurant(restaurant.getId())).thenReturn(restaurant);
+        return restaurant;
+    }
+
+    private LocalDateTime tomorrow_at(int hour) {
+        return LocalDateTime.of(LocalDate.now().plusDays(1), LocalTime.of(hour, 0));
+    }
+
+    private int book_concurrently(List<Callable<Boolean>> bookings) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (Callable<Boolean> booking : bookings) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return booking.call();
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    succeeded++;
+                }
+            }
+            return succeeded;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<Boolean> booking(int restaurantId, LocalDateTime datetime, AtomicInteger unexpected) {
+        return () -> {
+            try {
+                reservationService.reserveTable(restaurantId, 2, datetime);
+                return true;
+            } catch (TableNotFound e) {
+                return false;
+            } catch (Exception e) {
+                unexpected.incrementAndGet();
+                return false;
+            }
+        };
+    }
+
+    @Test
+    public void reserveTable_When_ConcurrentBookingsForSameSlot_Then_NoTableDoubleBooked() throws Exception {
+        Restaurant restaurant = make_restaurant_with_tables(5);
+        LocalDateTime datetime = tomorrow_at(20);
+        AtomicInteger unexpected = new AtomicInteger();
+        List<Callable<Boolean>> bookings = new ArrayList<>();
+        for (int i = 0; i < THREADS * ATTEMPTS_PER_THREAD; i++) {
+            bookings.add(booking(restaurant.getId(), datetime, unexpected));
+        }
+
+        int succeeded = book_concurrently(bookings);
+
+        assertEquals(0, unexpected.get());
+        assertEquals(5, succeeded);
+        for (Table table : restaurant.getTables()) {
+            assertEquals(1, table.getReservations().size());
+            assertTrue(table.isReserved(datetime));
+        }
+    }
+
+    @Test
+    public void reserveTable_When_ConcurrentBookingsAcrossRestaurants_Then_AllSlotsFilledOnce() throws Exception {
+        List<Restaurant> restaurants = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            restaurants.add(make_restaurant_with_tables(3));
+        }
+        AtomicInteger unexpected = new AtomicInteger();
+        List<Callable<Boolean>> bookings = new ArrayList<>();
+        for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+            for (Restaurant restaurant : restaurants) {
+                for (int hour = 10; hour < 14; hour++) {
+                    bookings.add(booking(restaurant.getId(), tomorrow_at(hour), unexpected));
+                }
+            }
+        }
+
+        int succeeded = book_concurrently(bookings);
+
+        assertEquals(0, unexpected.get());
+        assertEquals(4 * 3 * 4, succeeded);
+        List<Reservation> reservations = client.getReservations();
+        assertEquals(succeeded, reservations.size());
+        Set<Integer> numbers = new HashSet<>();
+        for (Reservation reservation : reservations) {
+            assertTrue(numbers.add(reservation.getReservationNumber()));
+        }
+        for (Restaurant restaurant : restaurants) {
+            for (Table table : restaurant.getTables()) {
+                assertEquals(4, table.getReservations().size());
+            }
+        }
+    }
+
+    @Test
+    public void reserveTable_When_SlotCancelled_Then_TableCanBeBookedAgain() throws Exception {
+        Restaurant restaurant = make_restaurant_with_tables(1);
+        LocalDateTime datetime = tomorrow_at(12);
+        Reservation first = reservationService.reserveTable(restaurant.getId(), 2, datetime);
+        assertThrows(TableNotFound.class, () -> reservationService.reserveTable(restaurant.getId(), 2, datetime));
+
+        reservationService.cancelReservation(first.getReservationNumber());
+        Reservation second = reservationService.reserveTable(restaurant.getId(), 2, datetime);
+
+        assertNotEquals(first.getReservationNumber(), second.getReservationNumber());
+        assertTrue(restaurant.getTables().get(0).isReserved(datetime));
+    }
+
+    @Test
+    public void getReservations_When_DateRangeGiven_Then_OnlyReservationsOfThoseDays() throws Exception {
+        Restaurant restaurant = make_restaurant_with_tables(1);
+        stub_reservation_queries(restaurant);
+        for (int day = 1; day <= 9; day++) {
+            reservationService.reserveTable(restaurant.getId(), 2, tomorrow_at(12).plusDays(day));
+        }
+        lenient().when(userService.getCurrentUser()).thenReturn(restaurant.getManager());
+        int tableNumber = restaurant.getTables().get(0).getTableNumber();
+        LocalDate from = LocalDate.now().plusDays(3);
+
+        List<Reservation> week = reservationService.getReservations(restaurant.getId(), tableNumber, from,
+                from.plusDays(6));
+
+        assertEquals(7, week.size());
+        assertEquals(from, week.get(0).getDateTime().toLocalDate());
+        assertEquals(from.plusDays(6), week.get(6).getDateTime().toLocalDate());
+        assertEquals(1, reservationService.getReservations(restaurant.getId(), tableNumber, from).size());
+        assertThrows(InvalidDateRange.class, () -> reservationService.getReservations(restaurant.getId(), tableNumber,
+                from, from.minusDays(1)));
+        verify(db).findReservations(restaurant.getId(), tableNumber, from.atStartOfDay(),
+                from.plusDays(7).atStartOfDay());
+    }
+
+    @Test
+    public void getRestaurantReservations_When_DateRangeGiven_Then_EveryTableWithItsReservations() throws Exception {
+        Restaurant restaurant = make_restaurant_with_tables(3);
+        stub_reservation_queries(restaurant);
+        reservationService.reserveTable(restaurant.getId(), 2, tomorrow_at(12));
+        reservationService.reserveTable(restaurant.getId(), 2, tomorrow_at(12));
+        reservationService.reserveTable(restaurant.getId(), 2, tomorrow_at(12).plusDays(7));
+        lenient().when(userService.getCurrentUser()).thenReturn(restaurant.getManager());
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        RestaurantReservations day = reservationService.getRestaurantReservations(restaurant.getId(), tomorrow, tomorrow);
+
+        assertEquals(restaurant.getTables(), day.getTables());
+        int total = 0;
+        for (Table table : day.getTables()) {
+            total += day.getReservations(table).size();
+        }
+        assertEquals(2, total);
+        verify(db).findReservations(restaurant.getId(), tomorrow.atStartOfDay(), tomorrow.plusDays(1).atStartOfDay());
+        assertThrows(InvalidDateRange.class, () -> reservationService.getRestaurantReservations(restaurant.getId(),
+                tomorrow, tomorrow.minusDays(1)));
+    }
+
+    @Test
+    public void getAvailabilityCalendar_When_DateRangeGiven_Then_FreeTimesPerDay() throws Exception {
+        Restaurant restaurant = make_restaurant_with_tables(1);
+        reservationService.reserveTable(restaurant.getId(), 2, tomorrow_at(12));
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        Map<LocalDate, List<LocalTime>> calendar = reservationService.getAvailabilityCalendar(restaurant.getId(), 2,
+                tomorrow, tomorrow.plusDays(29));
+
+        assertEquals(30, calendar.size());
+        assertEquals(tomorrow, calendar.keySet().iterator().next());
+        assertEquals(23, calendar.get(tomorrow).size());
+        assertFalse(calendar.get(tomorrow).contains(LocalTime.of(12, 0)));
+        assertEquals(24, calendar.get(tomorrow.plusDays(1)).size());
+        assertEquals(reservationService.getAvailableTimes(restaurant.getId(), 2, tomorrow), calendar.get(tomorrow));
+        assertEquals(List.of(), reservationService.getAvailabilityCalendar(restaurant.getId(), 5, tomorrow, tomorrow)
+                .get(tomorrow));
+        assertThrows(InvalidDateRange.class, () -> reservationService.getAvailabilityCalendar(restaurant.getId(), 2,
+                tomorrow, tomorrow.minusDays(1)));
+    }
+
+    @Test
+    public void getAvailabilityCalendar_When_RangeLongerThanCap_Then_InvalidDateRange() throws Exception {
+        Restaurant restaurant = make_restaurant_with_tables(1);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        assertEquals(30, reservationService.getAvailabilityCalendar(restaurant.getId(), 2, tomorrow,
+                tomorrow.plusDays(29)).size());
+        assertThrows(InvalidDateRange.class, () -> reservationService.getAvailabilityCalendar(restaurant.getId(), 2,
+                tomorrow, tomorrow.plusDays(30)));
+        assertThrows(InvalidDateRange.class, () -> reservationService.getAvailabilityCalendar(restaurant.getId(), 2,
+                tomorrow, LocalDate.MAX));
+    }
+}
@@ -0,0 +1,102 @@
+package mizdooni.service;
+
+import mizdooni.model.Address;
+import mizdooni.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionStoreTest {
+    private MutableClock clock;
+    private SessionStore sessions;
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock();
+        sessions = new SessionStore(Duration.ofMinutes(30), clock);
+        user = new User("user", "pass", "user@example.com", new Address("Iran", "Tehran", null), User.Role.client);
+    }
+
+    @Test
+    public void find_When_SessionCreated_Then_User() {
+        String token = sessions.create(user);
+        assertEquals(user, sessions.find(token));
+    }
+
+    @Test
+    public void create_When_CalledTwice_Then_DistinctTokens() {
+        assertNotEquals(sessions.create(user), sessions.create(user));
+    }
+
+    @Test
+    public void find_When_UnknownOrNullToken_Then_Null() {
+        assertNull(sessions.find("unknown"));
+        assertNull(sessions.find(null));
+    }
+
+    @Test
+    public void find_When_Invalidated_Then_Null() {
+        String token = sessions.create(user);
+        sessions.invalidate(token);
+        assertNull(sessions.find(token));
+    }
+
+    @Test
+    public void find_When_IdleLongerThanTimeout_Then_Expired() {
+        String token = sessions.create(user);
+        clock.advance(Duration.ofMinutes(31));
+        assertNull(sessions.find(token));
+        assertEquals(0, sessions.size());
+    }
+
+    @Test
+    public void find_When_UsedWithinTimeout_Then_ExpiryExtended() {
+        String token = sessions.create(user);
+        clock.advance(Duration.ofMinutes(20));
+        assertEquals(user, sessions.find(token));
+        clock.advance(Duration.ofMinutes(20));
+        assertEquals(user, sessions.find(token));
+    }
+
+    @Test
+    public void sweep_When_SessionsExpired_Then_Removed() {
+        sessions.create(user);
+        clock.advance(Duration.ofMinutes(10));
+        String live = sessions.create(user);
+        clock.advance(Duration.ofMinutes(25));
+        sessions.sweep();
+        assertEquals(1, sessions.size());
+        assertEquals(user, sessions.find(live));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-10-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}